@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.benchmark;
+
+import com.callumwong.nullifier.Nullifier;
+import com.callumwong.nullifier.common.capabilities.CapabilityVoidSink;
+import com.callumwong.nullifier.common.capabilities.IVoidSink;
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.core.config.NullifierConfig;
+import com.callumwong.nullifier.core.event.EventHandler;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import net.minecraft.fluid.Fluids;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStartedEvent;
+import net.minecraftforge.items.CapabilityItemHandler;
+import net.minecraftforge.items.IItemHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A stress test of the off-thread insertion path, active with -Pbenchmark.scenario=stress on the benchmarkServer run.
+ * Worker threads hammer one nullifier's item handler, void sink and fluid handler concurrently while the server keeps
+ *   ticking; once they are done and a tick has drained what they voided, the nullifier's statistics must add up to
+ *   exactly what was inserted. The result is written to benchmark-report.json and the server stops.
+ */
+@Mod.EventBusSubscriber(modid = Nullifier.MOD_ID)
+public class ConcurrentInsertStress {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final boolean ENABLED = Boolean.getBoolean("nullifier.benchmark")
+            && "stress".equals(System.getProperty("nullifier.benchmark.scenario"));
+
+    private static final int THREADS = Integer.getInteger("nullifier.benchmark.threads", 8);
+    private static final int INSERTS_PER_THREAD = Integer.getInteger("nullifier.benchmark.insertsPerThread", 200_000);
+    private static final String REPORT = System.getProperty("nullifier.benchmark.report", "benchmark-report.json");
+    private static final Item[] ITEMS = {Items.COBBLESTONE, Items.DIRT, Items.ROTTEN_FLESH, Items.BONE, Items.ARROW};
+    private static final int FLUID_AMOUNT = 250;
+
+    private static NullifierTileEntity tileEntity;
+    private static CountDownLatch done;
+    private static final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private static long startNanos;
+    private static long elapsedNanos;
+    private static int ticksAfterDone;
+
+    @SubscribeEvent
+    public static void onServerStarted(FMLServerStartedEvent event) {
+        if (!ENABLED) return;
+        ServerWorld world = event.getServer().overworld();
+        BlockPos pos = new BlockPos(0, 5, 0);
+        world.setChunkForced(0, 0, true);
+        world.setBlock(pos, EventHandler.nullifierBlock.defaultBlockState(), 3);
+        TileEntity placed = world.getBlockEntity(pos);
+        if (!(placed instanceof NullifierTileEntity)) throw new IllegalStateException("No nullifier at " + pos);
+        tileEntity = (NullifierTileEntity) placed;
+
+        IItemHandler itemHandler = tileEntity.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, Direction.UP).orElseThrow(IllegalStateException::new);
+        IVoidSink voidSink = tileEntity.getCapability(CapabilityVoidSink.VOID_SINK_CAPABILITY, Direction.UP).orElseThrow(IllegalStateException::new);
+        IFluidHandler fluidHandler = tileEntity.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, Direction.UP).orElseThrow(IllegalStateException::new);
+
+        done = new CountDownLatch(THREADS);
+        startNanos = System.nanoTime();
+        for (int t = 0; t < THREADS; ++t) {
+            Item item = ITEMS[t % ITEMS.length];
+            Thread worker = new Thread(() -> {
+                try {
+                    List<ItemStack> batch = new ArrayList<>(1);
+                    for (int i = 0; i < INSERTS_PER_THREAD; ++i) {
+                        switch (i % 3) {
+                            case 0:
+                                itemHandler.insertItem(0, new ItemStack(item, 64), false);
+                                break;
+                            case 1:
+                                batch.clear();
+                                batch.add(new ItemStack(item, 64));
+                                voidSink.voidAll(batch);
+                                break;
+                            default:
+                                voidSink.voidCount(item, 64);
+                                fluidHandler.fill(new FluidStack(Fluids.WATER, FLUID_AMOUNT), IFluidHandler.FluidAction.EXECUTE);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }, "Nullifier stress " + t);
+            worker.start();
+        }
+        LOGGER.info("Stress: {} threads inserting {} times each", THREADS, INSERTS_PER_THREAD);
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (!ENABLED || tileEntity == null || event.phase != TickEvent.Phase.END || done.getCount() > 0) return;
+        if (elapsedNanos == 0) elapsedNanos = System.nanoTime() - startNanos;
+        // The workers finished during this tick or before; the next full tick is guaranteed to have drained them
+        if (++ticksAfterDone < 2) return;
+        finish(tileEntity.getLevel().getServer());
+    }
+
+    private static void finish(MinecraftServer server) {
+        long expectedItems = 0;
+        long expectedWater = 0;
+        List<Long> perItem = new ArrayList<>(Collections.nCopies(ITEMS.length, 0L));
+        for (int t = 0; t < THREADS; ++t) {
+            int index = t % ITEMS.length;
+            perItem.set(index, perItem.get(index) + 64L * INSERTS_PER_THREAD);
+            expectedItems += 64L * INSERTS_PER_THREAD;
+            if (NullifierConfig.recordFluidStatistics) expectedWater += (long) FLUID_AMOUNT * (INSERTS_PER_THREAD / 3); // every third insert fills
+        }
+
+        boolean passed = failure.get() == null && tileEntity.getStatistics().getTotal() == expectedItems
+                && tileEntity.getStatistics().getAmount(Fluids.WATER) == expectedWater;
+        for (int i = 0; i < ITEMS.length; ++i) {
+            passed &= tileEntity.getStatistics().getCount(ITEMS[i]) == perItem.get(i);
+        }
+
+        JsonObject report = new JsonObject();
+        report.addProperty("scenario", "stress");
+        report.addProperty("threads", THREADS);
+        report.addProperty("insertsPerThread", INSERTS_PER_THREAD);
+        report.addProperty("passed", passed);
+        report.addProperty("expectedItems", expectedItems);
+        report.addProperty("voidedItems", tileEntity.getStatistics().getTotal());
+        report.addProperty("expectedWater", expectedWater);
+        report.addProperty("voidedWater", tileEntity.getStatistics().getAmount(Fluids.WATER));
+        report.addProperty("callsPerSecond", THREADS * (double) INSERTS_PER_THREAD / (elapsedNanos / 1e9));
+        if (failure.get() != null) report.addProperty("failure", failure.get().toString());
+
+        Path path = Paths.get(REPORT).toAbsolutePath();
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        } catch (IOException e) {
+            LOGGER.error("Stress: could not write the report to {}", path, e);
+        }
+        if (passed) LOGGER.info("Stress: PASSED {}", report);
+        else LOGGER.error("Stress: FAILED {}", report, failure.get());
+
+        tileEntity = null;
+        server.halt(false);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.benchmark;
+
+import com.callumwong.nullifier.Nullifier;
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.core.event.EventHandler;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.DispenserBlock;
+import net.minecraft.block.HopperBlock;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStartedEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reproducible server-side load scenario, only active when the nullifier.benchmark system property is set (as the
+ *   benchmarkServer run does) and no other scenario was chosen.
+ * Once the server has started, hopperChains chains of hoppers and droppers droppers are built in the overworld, each
+ *   ending in a nullifier and refilled with cobblestone every tick. After warmupTicks the server runs for ticks more
+ *   ticks, then writes the tick time percentiles, the items voided per second and the bytes allocated on the server
+ *   thread per tick to benchmark-report.json and stops.
+ */
+@Mod.EventBusSubscriber(modid = Nullifier.MOD_ID)
+public class ServerBenchmark {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final boolean ENABLED = Boolean.getBoolean("nullifier.benchmark")
+            && "load".equals(System.getProperty("nullifier.benchmark.scenario", "load"));
+
+    private static final int HOPPER_CHAINS = Integer.getInteger("nullifier.benchmark.hopperChains", 64);
+    private static final int DROPPERS = Integer.getInteger("nullifier.benchmark.droppers", 64);
+    private static final int TICKS = Integer.getInteger("nullifier.benchmark.ticks", 1200);
+    private static final int WARMUP_TICKS = Integer.getInteger("nullifier.benchmark.warmupTicks", 200);
+    private static final String REPORT = System.getProperty("nullifier.benchmark.report", "benchmark-report.json");
+
+    private static final int CHAIN_LENGTH = 4;
+    private static final int ROW_WIDTH = 32;
+    private static final int BASE_Y = 5; // just above the surface of the default flat world
+    private static final int DROPPER_AREA_X = 128;
+
+    private static final com.sun.management.ThreadMXBean THREADS = getThreadBean();
+
+    private static final List<IInventory> FEEDERS = new ArrayList<>();
+    private static final List<BlockPos> DROPPER_POSITIONS = new ArrayList<>();
+    private static final List<NullifierTileEntity> NULLIFIERS = new ArrayList<>();
+
+    private static ServerWorld world;
+    private static int tick;
+    private static long tickStart;
+    private static long allocatedAtTickStart;
+    private static long[] tickNanos;
+    private static long allocatedBytes;
+    private static long voidedAtStart;
+    private static long wallStart;
+
+    @SubscribeEvent
+    public static void onServerStarted(FMLServerStartedEvent event) {
+        if (!ENABLED) return;
+        world = event.getServer().overworld();
+        for (int i = 0; i < HOPPER_CHAINS; ++i) buildHopperChain(originOf(i, 0));
+        for (int i = 0; i < DROPPERS; ++i) buildDropper(originOf(i, DROPPER_AREA_X));
+        tickNanos = new long[TICKS];
+        LOGGER.info("Benchmark: built {} hopper chains and {} droppers, running {} + {} ticks", HOPPER_CHAINS, DROPPERS, WARMUP_TICKS, TICKS);
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (!ENABLED || world == null) return;
+
+        if (event.phase == TickEvent.Phase.START) {
+            feed();
+            if (tick == WARMUP_TICKS) {
+                voidedAtStart = countVoided();
+                wallStart = System.nanoTime();
+            }
+            allocatedAtTickStart = allocatedBytes();
+            tickStart = System.nanoTime();
+            return;
+        }
+
+        long elapsed = System.nanoTime() - tickStart;
+        if (tick >= WARMUP_TICKS) {
+            tickNanos[tick - WARMUP_TICKS] = elapsed;
+            allocatedBytes += allocatedBytes() - allocatedAtTickStart;
+        }
+        if (++tick == WARMUP_TICKS + TICKS) finish(world.getServer());
+    }
+
+    private static BlockPos originOf(int index, int offsetX) {
+        return new BlockPos(offsetX + (index % ROW_WIDTH) * 2, BASE_Y, (index / ROW_WIDTH) * (CHAIN_LENGTH + 2));
+    }
+
+    private static void buildHopperChain(BlockPos origin) {
+        BlockState hopper = Blocks.HOPPER.defaultBlockState().setValue(HopperBlock.FACING, Direction.SOUTH);
+        for (int i = 0; i < CHAIN_LENGTH; ++i) place(origin.south(i), hopper);
+        placeNullifier(origin.south(CHAIN_LENGTH));
+        TileEntity head = world.getBlockEntity(origin);
+        if (head instanceof IInventory) FEEDERS.add((IInventory) head);
+    }
+
+    private static void buildDropper(BlockPos origin) {
+        place(origin, Blocks.DROPPER.defaultBlockState().setValue(DispenserBlock.FACING, Direction.SOUTH));
+        placeNullifier(origin.south());
+        TileEntity dropper = world.getBlockEntity(origin);
+        if (dropper instanceof IInventory) FEEDERS.add((IInventory) dropper);
+        DROPPER_POSITIONS.add(origin);
+    }
+
+    private static void placeNullifier(BlockPos pos) {
+        place(pos, EventHandler.nullifierBlock.defaultBlockState());
+        TileEntity tileEntity = world.getBlockEntity(pos);
+        if (tileEntity instanceof NullifierTileEntity) NULLIFIERS.add((NullifierTileEntity) tileEntity);
+    }
+
+    private static void place(BlockPos pos, BlockState state) {
+        world.setChunkForced(pos.getX() >> 4, pos.getZ() >> 4, true);
+        world.setBlock(pos, state, 3);
+    }
+
+    /**
+     * Tops every feeder up to a full stack, and fires every dropper once (a dropper dispenses on its scheduled tick)
+     */
+    private static void feed() {
+        for (IInventory feeder : FEEDERS) {
+            if (feeder.getItem(0).getCount() < 64) feeder.setItem(0, new ItemStack(Items.COBBLESTONE, 64));
+        }
+        for (BlockPos pos : DROPPER_POSITIONS) {
+            world.getBlockTicks().scheduleTick(pos, Blocks.DROPPER, 1);
+        }
+    }
+
+    private static long countVoided() {
+        long total = 0;
+        for (NullifierTileEntity tileEntity : NULLIFIERS) total += tileEntity.getStatistics().getTotal();
+        return total;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void finish(MinecraftServer server) {
+        long wallNanos = System.nanoTime() - wallStart;
+        long voided = countVoided() - voidedAtStart;
+        long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long nanos : sorted) sum += nanos;
+
+        JsonObject scenario = new JsonObject();
+        scenario.addProperty("hopperChains", HOPPER_CHAINS);
+        scenario.addProperty("chainLength", CHAIN_LENGTH);
+        scenario.addProperty("droppers", DROPPERS);
+        scenario.addProperty("warmupTicks", WARMUP_TICKS);
+        scenario.addProperty("ticks", TICKS);
+
+        JsonObject mspt = new JsonObject();
+        mspt.addProperty("mean", sum / (double) TICKS / 1e6);
+        mspt.addProperty("p50", percentile(sorted, 0.50) / 1e6);
+        mspt.addProperty("p90", percentile(sorted, 0.90) / 1e6);
+        mspt.addProperty("p99", percentile(sorted, 0.99) / 1e6);
+        mspt.addProperty("max", sorted[sorted.length - 1] / 1e6);
+
+        JsonObject report = new JsonObject();
+        report.addProperty("version", Nullifier.class.getPackage().getImplementationVersion());
+        report.addProperty("javaVersion", System.getProperty("java.version"));
+        report.add("scenario", scenario);
+        report.add("mspt", mspt);
+        report.addProperty("itemsVoided", voided);
+        report.addProperty("itemsVoidedPerGameSecond", voided * 20.0 / TICKS);
+        report.addProperty("itemsVoidedPerWallSecond", voided / (wallNanos / 1e9));
+        report.addProperty("allocatedBytesPerTick", THREADS == null ? -1 : allocatedBytes / TICKS);
+
+        Path path = Paths.get(REPORT).toAbsolutePath();
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            gson.toJson(report, writer);
+            LOGGER.info("Benchmark: report written to {}", path);
+        } catch (IOException e) {
+            LOGGER.error("Benchmark: could not write the report to {}", path, e);
+        }
+        LOGGER.info("Benchmark: {}", report);
+
+        world = null;
+        server.halt(false);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported()) return null;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.benchmark;
+
+import com.callumwong.nullifier.common.containers.NullifierContents;
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The check an open nullifier container runs every tick: NullifierContents.stillValid, which calls the TileEntity's
+ *   canPlayerAccessInventory.
+ * A world and a player can't be created outside of a game, so both are stubbed: the world returns the TileEntity at its
+ *   position and the player reports a fixed distance, inside or outside the reach. The stubs' own cost is measured by
+ *   the lookups benchmark, which makes the same calls on them without the nullifier code, and should be subtracted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessBenchmark {
+    private static final BlockPos POS = new BlockPos(100, 64, -200);
+
+    @Param({"true", "false"})
+    public boolean inReach;
+
+    private World world;
+    private PlayerEntity player;
+    private NullifierTileEntity tileEntity;
+    private NullifierContents contents;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.bootstrap();
+        tileEntity = new NullifierTileEntity();
+        world = mock(World.class);
+        when(world.getBlockEntity(POS)).thenReturn(tileEntity);
+        tileEntity.setLevelAndPosition(world, POS);
+
+        player = mock(PlayerEntity.class);
+        when(player.distanceToSqr(anyDouble(), anyDouble(), anyDouble())).thenReturn(inReach ? 4.0 * 4.0 : 16.0 * 16.0);
+
+        // wired the same way as the TileEntity's own contents
+        contents = NullifierContents.createForTileEntity(NullifierTileEntity.NUMBER_OF_SLOTS, tileEntity::canPlayerAccessInventory, () -> {});
+    }
+
+    @Benchmark
+    public boolean canPlayerAccessInventory() {
+        return tileEntity.canPlayerAccessInventory(player);
+    }
+
+    @Benchmark
+    public boolean stillValid() {
+        return contents.stillValid(player);
+    }
+
+    @Benchmark
+    public boolean lookups() {
+        TileEntity found = world.getBlockEntity(POS);
+        return found == tileEntity && player.distanceToSqr(100.5, 64.5, -199.5) < 64.0;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.benchmark;
+
+import com.callumwong.nullifier.common.containers.NullifierContainer;
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.core.event.EventHandler;
+import net.minecraft.block.Blocks;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.enchantment.Enchantments;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.StringNBT;
+import net.minecraft.tileentity.TileEntityType;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraftforge.common.extensions.IForgeContainerType;
+import net.minecraftforge.registries.ForgeRegistries;
+
+/**
+ * Bootstraps the vanilla registries once per benchmark JVM and fills in the mod's types that would otherwise be set
+ *   by the registry events, so the real TileEntity, Container and capability code can run outside of a game.
+ */
+public final class BenchmarkBootstrap {
+    private static boolean bootstrapped;
+
+    private BenchmarkBootstrap() {
+    }
+
+    public static synchronized void bootstrap() {
+        if (bootstrapped) return;
+        Bootstrap.bootStrap();
+
+        if (EventHandler.nullifierTileEntityType == null) {
+            // save() looks the type up in the registry, so it has to be registered rather than just constructed
+            EventHandler.nullifierTileEntityType = TileEntityType.Builder.of(NullifierTileEntity::new, Blocks.STONE).build(null);
+            EventHandler.nullifierTileEntityType.setRegistryName("nullifier", "nullifier");
+            ForgeRegistries.TILE_ENTITIES.register(EventHandler.nullifierTileEntityType);
+        }
+        if (EventHandler.nullifierContainerType == null) {
+            EventHandler.nullifierContainerType = IForgeContainerType.create(NullifierContainer::createContainerClientSide);
+        }
+        bootstrapped = true;
+    }
+
+    /**
+     * A full stack of plain cobblestone, the common case for farms feeding a nullifier
+     */
+    public static ItemStack plainStack() {
+        return new ItemStack(Items.COBBLESTONE, 64);
+    }
+
+    /**
+     * A heavily enchanted, renamed and lore-laden sword, similar to mob farm drops
+     */
+    public static ItemStack heavyNbtStack() {
+        ItemStack stack = new ItemStack(Items.DIAMOND_SWORD);
+        for (Enchantment enchantment : new Enchantment[]{Enchantments.SHARPNESS, Enchantments.UNBREAKING, Enchantments.MENDING,
+                Enchantments.FIRE_ASPECT, Enchantments.KNOCKBACK, Enchantments.MOB_LOOTING, Enchantments.SWEEPING_EDGE}) {
+            stack.enchant(enchantment, enchantment.getMaxLevel());
+        }
+        CompoundNBT display = stack.getOrCreateTagElement("display");
+        ListNBT lore = new ListNBT();
+        for (int i = 0; i < 32; ++i) {
+            lore.add(StringNBT.valueOf("{\"text\":\"Benchmark lore line " + i + "\"}"));
+        }
+        display.put("Lore", lore);
+        display.putString("Name", "{\"text\":\"Heavy\"}");
+        stack.setDamageValue(123);
+        return stack;
+    }
+
+    public static ItemStack stack(boolean heavyNbt) {
+        return heavyNbt ? heavyNbtStack() : plainStack();
+    }
+}
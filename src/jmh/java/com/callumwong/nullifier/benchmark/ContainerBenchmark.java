@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.benchmark;
+
+import com.callumwong.nullifier.common.containers.NullifierContainer;
+import com.callumwong.nullifier.common.containers.NullifierContents;
+import com.callumwong.nullifier.common.tiles.ExperienceBank;
+import com.callumwong.nullifier.common.tiles.ItemFilter;
+import com.callumwong.nullifier.common.tiles.NullifierSettings;
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.common.tiles.RecoveryBuffer;
+import com.callumwong.nullifier.common.tiles.VoidStatistics;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shift-clicking a full stack from the player's inventory into a server side nullifier container.
+ * The container is built around a PlayerInventory without a player, which quickMoveStack never dereferences.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContainerBenchmark {
+    private static final int FIRST_PLAYER_SLOT = NullifierTileEntity.NUMBER_OF_SLOTS;
+
+    @Param({"false", "true"})
+    public boolean heavyNbt;
+
+    private ItemStack stack;
+    private PlayerInventory playerInventory;
+    private NullifierContainer container;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.bootstrap();
+        stack = BenchmarkBootstrap.stack(heavyNbt);
+        playerInventory = new PlayerInventory(null);
+        NullifierContents contents = NullifierContents.createForTileEntity(NullifierTileEntity.NUMBER_OF_SLOTS, player -> true, () -> {});
+        container = NullifierContainer.createContainerServerSide(0, playerInventory, contents, new Inventory(ItemFilter.SIZE),
+                new NullifierSettings(), new ExperienceBank(), new RecoveryBuffer(), new VoidStatistics());
+    }
+
+    @Benchmark
+    public ItemStack quickMoveStack() {
+        container.getSlot(FIRST_PLAYER_SLOT).set(stack.copy());
+        return container.quickMoveStack(null, FIRST_PLAYER_SLOT);
+    }
+}
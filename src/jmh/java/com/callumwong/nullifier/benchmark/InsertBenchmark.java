@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.benchmark;
+
+import com.callumwong.nullifier.common.capabilities.VoidItemHandler;
+import com.callumwong.nullifier.common.containers.NullifierContents;
+import com.callumwong.nullifier.common.containers.ReadOnlyItemStackHandler;
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.wrapper.InvWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inserting a stack through each of the ways items reach a nullifier: the item handler capability used by hoppers and
+ *   pipes, the vanilla InvWrapper around the GUI inventory, and the GUI inventory itself.
+ * The stack is never consumed, so the same instance is reused and only the nullifier's own allocations are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+    @Param({"false", "true"})
+    public boolean heavyNbt;
+
+    private ItemStack stack;
+    private NullifierTileEntity tileEntity;
+    private VoidItemHandler voidItemHandler;
+    private NullifierContents contents;
+    private InvWrapper invWrapper;
+    private ReadOnlyItemStackHandler readOnlyItemStackHandler;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.bootstrap();
+        stack = BenchmarkBootstrap.stack(heavyNbt);
+        tileEntity = new NullifierTileEntity();
+        voidItemHandler = new VoidItemHandler(tileEntity);
+        contents = NullifierContents.createForTileEntity(NullifierTileEntity.NUMBER_OF_SLOTS, player -> true, () -> {});
+        invWrapper = new InvWrapper(contents);
+        readOnlyItemStackHandler = new ReadOnlyItemStackHandler(NullifierTileEntity.NUMBER_OF_SLOTS);
+    }
+
+    @Benchmark
+    public ItemStack voidItemHandlerInsert() {
+        return voidItemHandler.insertItem(0, stack, false);
+    }
+
+    @Benchmark
+    public ItemStack voidItemHandlerSimulate() {
+        return voidItemHandler.insertItem(0, stack, true);
+    }
+
+    @Benchmark
+    public ItemStack invWrapperInsert() {
+        return invWrapper.insertItem(0, stack, false);
+    }
+
+    @Benchmark
+    public NullifierContents contentsSetItem() {
+        contents.setItem(0, stack);
+        return contents;
+    }
+
+    @Benchmark
+    public ItemStack readOnlyItemStackHandlerInsert() {
+        return readOnlyItemStackHandler.insertItem(0, stack, false);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.benchmark;
+
+import com.callumwong.nullifier.common.containers.ReadOnlyItemStackHandler;
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.ItemStackHandler;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * The heap a placed nullifier's slot storage keeps reachable after items went through it: a plain ItemStackHandler, as
+ *   the nullifier used before, against the ReadOnlyItemStackHandler it uses now.
+ * Every slot of NULLIFIERS handlers gets its own copy of the stack, the way pipes and hoppers hand over new stacks, and
+ *   the heap in use after a full GC is compared with the heap before; the difference per handler is reported as the
+ *   retainedBytesPerNullifier counter. ReadOnlyItemStackHandler should stay at the size of the handler itself, whatever
+ *   the NBT of the stacks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseSerialGC")
+public class RetentionBenchmark {
+    private static final int NULLIFIERS = 2000;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @Param({"ItemStackHandler", "ReadOnlyItemStackHandler"})
+    public String storage;
+
+    @Param({"false", "true"})
+    public boolean heavyNbt;
+
+    private ItemStack stack;
+    private ItemStackHandler[] handlers;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Retained {
+        public long retainedBytesPerNullifier;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.bootstrap();
+        stack = BenchmarkBootstrap.stack(heavyNbt);
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() {
+        handlers = null;
+    }
+
+    @Benchmark
+    public ItemStackHandler[] fill(Retained retained) {
+        long before = usedHeapAfterGc();
+        handlers = new ItemStackHandler[NULLIFIERS];
+        for (int i = 0; i < NULLIFIERS; ++i) {
+            ItemStackHandler handler = "ItemStackHandler".equals(storage)
+                    ? new ItemStackHandler(NullifierTileEntity.NUMBER_OF_SLOTS)
+                    : new ReadOnlyItemStackHandler(NullifierTileEntity.NUMBER_OF_SLOTS);
+            for (int slot = 0; slot < NullifierTileEntity.NUMBER_OF_SLOTS; ++slot) {
+                handler.insertItem(slot, stack.copy(), false);
+            }
+            handlers[i] = handler;
+        }
+        long after = usedHeapAfterGc();
+        retained.retainedBytesPerNullifier = Math.max(0, after - before) / NULLIFIERS;
+        return handlers;
+    }
+
+    private static long usedHeapAfterGc() {
+        // a couple of rounds, so objects with finalizers or weak references are gone as well
+        for (int i = 0; i < 3; ++i) System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.benchmark;
+
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import net.minecraft.item.Item;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.registry.Registry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialising a nullifier for the chunk save and for the update tag sent to clients, with statistics for a varying
+ *   number of distinct item types
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveBenchmark {
+    @Param({"0", "16", "512"})
+    public int itemTypes;
+
+    private NullifierTileEntity tileEntity;
+
+    @Setup
+    public void setup() {
+        BenchmarkBootstrap.bootstrap();
+        tileEntity = new NullifierTileEntity();
+        int added = 0;
+        for (Item item : Registry.ITEM) {
+            if (added >= itemTypes) break;
+            tileEntity.getStatistics().addItem(item, 1000 + added);
+            ++added;
+        }
+    }
+
+    @Benchmark
+    public CompoundNBT save() {
+        return tileEntity.save(new CompoundNBT());
+    }
+
+    @Benchmark
+    public CompoundNBT getUpdateTag() {
+        return tileEntity.getUpdateTag();
+    }
+}
@@ -13,9 +13,15 @@
 package com.callumwong.nullifier;
 
 import com.callumwong.nullifier.client.event.ClientEventHandler;
+import com.callumwong.nullifier.core.config.NullifierConfig;
 import com.callumwong.nullifier.core.event.EventHandler;
+import com.callumwong.nullifier.core.event.ServerEventHandler;
+import com.callumwong.nullifier.core.network.NullifierNetwork;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.eventbus.api.IEventBus;
+import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 
 @Mod(Nullifier.MOD_ID)
@@ -26,5 +32,11 @@ public class Nullifier {
         IEventBus bus = FMLJavaModLoadingContext.get().getModEventBus();
         bus.register(EventHandler.class);
         bus.register(ClientEventHandler.class);
+        bus.register(NullifierConfig.class);
+
+        MinecraftForge.EVENT_BUS.register(ServerEventHandler.class);
+        NullifierNetwork.register();
+
+        ModLoadingContext.get().registerConfig(ModConfig.Type.SERVER, NullifierConfig.SERVER_SPEC);
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.client.network;
+
+import com.callumwong.nullifier.common.blocks.NullifierBlock;
+import com.callumwong.nullifier.common.containers.NullifierContainer;
+import com.callumwong.nullifier.core.network.StatisticsDeltaPacket;
+import com.callumwong.nullifier.core.network.VoidEffectPacket;
+import io.netty.buffer.Unpooled;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Client side handling of the mod's packets, kept apart so the packet classes can be loaded on a dedicated server
+ */
+@OnlyIn(Dist.CLIENT)
+public class ClientPacketHandler {
+    public static void handleStatisticsDelta(StatisticsDeltaPacket packet) {
+        PlayerEntity player = Minecraft.getInstance().player;
+        if (player == null || player.containerMenu.containerId != packet.getContainerId()) return;
+        if (!(player.containerMenu instanceof NullifierContainer)) return;
+        ((NullifierContainer) player.containerMenu).getStatistics().readDelta(new PacketBuffer(Unpooled.wrappedBuffer(packet.getDelta())));
+    }
+
+    public static void handleVoidEffect(VoidEffectPacket packet) {
+        ClientWorld world = Minecraft.getInstance().level;
+        if (world == null || !world.isLoaded(packet.getPos())) return;
+        NullifierBlock.spawnVoidEffect(world, packet.getPos(), packet.getIntensity());
+    }
+}
@@ -13,15 +13,53 @@
 package com.callumwong.nullifier.client.screens;
 
 import com.callumwong.nullifier.common.containers.NullifierContainer;
+import com.callumwong.nullifier.common.tiles.ExperienceBank;
+import com.callumwong.nullifier.common.tiles.ItemFilter;
+import com.callumwong.nullifier.common.tiles.NullifierSettings;
+import com.callumwong.nullifier.common.tiles.RecoveryBuffer;
+import com.callumwong.nullifier.common.tiles.VoidStatistics;
+import com.callumwong.nullifier.core.network.NullifierNetwork;
+import com.callumwong.nullifier.core.network.VoidAllPacket;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.systems.RenderSystem;
 import net.minecraft.client.gui.screen.inventory.ContainerScreen;
+import net.minecraft.client.gui.widget.button.Button;
 import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.container.Slot;
+import net.minecraft.util.Direction;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.StringTextComponent;
+import net.minecraft.util.text.TextFormatting;
+import net.minecraft.util.text.TranslationTextComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 public class NullifierContainerScreen extends ContainerScreen<NullifierContainer> {
     private static final ResourceLocation BACKGROUND_TEXTURE = new ResourceLocation("nullifier", "textures/guis/nullifier_bg.png");
+    private static final int BUTTON_SIZE = 20;
+    private static final int BUTTON_SPACING = 22;
+    private static final int BUTTONS_PER_COLUMN = 7;
+    private static final int STATISTICS_ENTRIES = 8;
+    private static final int STATISTICS_WIDTH = 64;
+    private static final int STATISTICS_LINE_HEIGHT = 18;
+    private static final int RATE_INTERVAL_TICKS = 20;
+    // indexed by the NullifierSettings.FACE_ constants
+    private static final TextFormatting[] FACE_MODE_COLOURS = {TextFormatting.WHITE, TextFormatting.GOLD, TextFormatting.AQUA,
+            TextFormatting.LIGHT_PURPLE, TextFormatting.DARK_GRAY};
+    private static final String[] FACE_MODE_KEYS = {"gui.nullifier.face_mode.both", "gui.nullifier.face_mode.items",
+            "gui.nullifier.face_mode.fluids", "gui.nullifier.face_mode.filtered", "gui.nullifier.face_mode.disabled"};
+
+    private final List<SettingsButton> settingsButtons = new ArrayList<>();
+    private List<VoidStatistics.Entry> topEntries = new ArrayList<>();
+    private int statisticsVersion = -1;
+    private long rateTotal = -1;
+    private int ticksSinceRate;
+    private long itemsPerSecond;
 
     public NullifierContainerScreen(NullifierContainer nullifierContainer, PlayerInventory playerInventory, ITextComponent title) {
         super(nullifierContainer, playerInventory, title);
@@ -30,15 +68,196 @@ public class NullifierContainerScreen extends ContainerScreen<NullifierContainer
     protected void init() {
         super.init();
         this.titleLabelX = (this.imageWidth - this.font.width(this.title)) / 2;
+
+        settingsButtons.clear();
+        addToggleButton("V", "gui.nullifier.vacuum", NullifierSettings.FLAG_VACUUM, NullifierSettings.BUTTON_TOGGLE_VACUUM);
+        addToggleButton("F", "gui.nullifier.filter", NullifierSettings.FLAG_FILTER, NullifierSettings.BUTTON_TOGGLE_FILTER);
+        addToggleButton("T", "gui.nullifier.filter_tags", NullifierSettings.FLAG_FILTER_TAGS, NullifierSettings.BUTTON_TOGGLE_FILTER_TAGS);
+        addToggleButton("N", "gui.nullifier.filter_nbt", NullifierSettings.FLAG_FILTER_NBT, NullifierSettings.BUTTON_TOGGLE_FILTER_NBT);
+        addToggleButton("O", "gui.nullifier.overflow", NullifierSettings.FLAG_OVERFLOW, NullifierSettings.BUTTON_TOGGLE_OVERFLOW);
+        addCycleButton(NullifierSettings.BUTTON_CYCLE_OVERFLOW_FACE,
+                () -> getFaceLabel(this.menu.getSettings().getOverflowFace()),
+                () -> new TranslationTextComponent("gui.nullifier.overflow_face", getFaceName(this.menu.getSettings().getOverflowFace())));
+        addCycleButton(NullifierSettings.BUTTON_CYCLE_OVERFLOW_THRESHOLD,
+                () -> new StringTextComponent("#"),
+                () -> new TranslationTextComponent("gui.nullifier.overflow_threshold", this.menu.getSettings().getOverflowThreshold()));
+        addToggleButton("P", "gui.nullifier.pull", NullifierSettings.FLAG_PULL, NullifierSettings.BUTTON_TOGGLE_PULL);
+        for (Direction face : Direction.values()) {
+            addCycleButton(NullifierSettings.BUTTON_TOGGLE_PULL_FACE + face.get3DDataValue(),
+                    () -> getFaceLabel(face).copy().withStyle(this.menu.getSettings().isPullFace(face) ? TextFormatting.GREEN : TextFormatting.GRAY),
+                    () -> new TranslationTextComponent("gui.nullifier.pull_face", getFaceName(face),
+                            new TranslationTextComponent(this.menu.getSettings().isPullFace(face) ? "gui.nullifier.on" : "gui.nullifier.off")));
+        }
+        addToggleButton("C", "gui.nullifier.claim", NullifierSettings.FLAG_CLAIM, NullifierSettings.BUTTON_TOGGLE_CLAIM);
+        for (Direction face : Direction.values()) {
+            addCycleButton(NullifierSettings.BUTTON_CYCLE_FACE_MODE + face.get3DDataValue(),
+                    () -> getFaceLabel(face).copy().withStyle(FACE_MODE_COLOURS[this.menu.getSettings().getFaceMode(face)]),
+                    () -> new TranslationTextComponent("gui.nullifier.face_mode", getFaceName(face),
+                            new TranslationTextComponent(FACE_MODE_KEYS[this.menu.getSettings().getFaceMode(face)])));
+        }
+        addToggleButton("A", "gui.nullifier.absorb", NullifierSettings.FLAG_ABSORB, NullifierSettings.BUTTON_TOGGLE_ABSORB);
+        addToggleButton("D", "gui.nullifier.drain", NullifierSettings.FLAG_DRAIN, NullifierSettings.BUTTON_TOGGLE_DRAIN);
+        Button withdrawButton = addSettingsButton(new StringTextComponent("X"),
+                () -> hasShiftDown() ? ExperienceBank.BUTTON_WITHDRAW_ALL : ExperienceBank.BUTTON_WITHDRAW_LEVEL,
+                () -> new TranslationTextComponent("gui.nullifier.withdraw_experience", this.menu.getExperienceBank().getStored()));
+        settingsButtons.add(new SettingsButton(withdrawButton, () -> new StringTextComponent("X")
+                .withStyle(this.menu.getExperienceBank().getStored() > 0 ? TextFormatting.GREEN : TextFormatting.GRAY)));
+        // the server checks the permission level, the buffer's contents aren't known here
+        Button recoverButton = addSettingsButton(new StringTextComponent("R"),
+                () -> hasShiftDown() ? RecoveryBuffer.BUTTON_RECOVER_MORE : RecoveryBuffer.BUTTON_RECOVER,
+                () -> new TranslationTextComponent("gui.nullifier.recover"));
+        settingsButtons.add(new SettingsButton(recoverButton, () -> new StringTextComponent("R")));
+        updateSettingsButtons();
+    }
+
+    /**
+     * Adds a button to the columns on the right of the GUI which toggles one of the NullifierSettings flags on the server
+     */
+    private void addToggleButton(String label, String translationKey, int flag, int buttonId) {
+        Button button = addSettingsButton(new StringTextComponent(label), buttonId, () -> getToggleTooltip(translationKey, flag));
+        settingsButtons.add(new SettingsButton(button, () -> new StringTextComponent(label)
+                .withStyle(this.menu.getSettings().isEnabled(flag) ? TextFormatting.GREEN : TextFormatting.GRAY)));
+    }
+
+    /**
+     * Adds a button which steps one of the NullifierSettings values on the server
+     */
+    private void addCycleButton(int buttonId, Supplier<ITextComponent> label, Supplier<ITextComponent> tooltip) {
+        Button button = addSettingsButton(label.get(), buttonId, tooltip);
+        settingsButtons.add(new SettingsButton(button, label));
+    }
+
+    private Button addSettingsButton(ITextComponent label, int buttonId, Supplier<ITextComponent> tooltip) {
+        return addSettingsButton(label, () -> buttonId, tooltip);
+    }
+
+    /**
+     * @param buttonId read when the button is pressed, so it can depend on the modifier keys
+     */
+    private Button addSettingsButton(ITextComponent label, IntSupplier buttonId, Supplier<ITextComponent> tooltip) {
+        int index = settingsButtons.size();
+        int x = this.leftPos + this.imageWidth + 2 + (index / BUTTONS_PER_COLUMN) * BUTTON_SPACING;
+        int y = this.topPos + 4 + (index % BUTTONS_PER_COLUMN) * BUTTON_SPACING;
+        Button button = new Button(x, y, BUTTON_SIZE, BUTTON_SIZE, label,
+                pressed -> this.minecraft.gameMode.handleInventoryButtonClick(this.menu.containerId, buttonId.getAsInt()),
+                (hovered, matrixStack, mouseX, mouseY) -> this.renderTooltip(matrixStack, tooltip.get(), mouseX, mouseY));
+        return this.addButton(button);
+    }
+
+    private static ITextComponent getFaceLabel(Direction face) {
+        return new StringTextComponent(face.getName().substring(0, 1).toUpperCase(Locale.ROOT));
+    }
+
+    private static ITextComponent getFaceName(Direction face) {
+        return new TranslationTextComponent("gui.nullifier.face." + face.getName());
+    }
+
+    private ITextComponent getToggleTooltip(String translationKey, int flag) {
+        boolean enabled = this.menu.getSettings().isEnabled(flag);
+        return new TranslationTextComponent(translationKey, new TranslationTextComponent(enabled ? "gui.nullifier.on" : "gui.nullifier.off"));
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        updateSettingsButtons();
+        updateRate();
+    }
+
+    /**
+     * The statistics are kept up to date by the server while the GUI is open, so the throughput is just their change over time
+     */
+    private void updateRate() {
+        if (++ticksSinceRate < RATE_INTERVAL_TICKS) return;
+        long total = this.menu.getStatistics().getTotal();
+        if (rateTotal >= 0) itemsPerSecond = (total - rateTotal) * 20 / ticksSinceRate;
+        rateTotal = total;
+        ticksSinceRate = 0;
+    }
+
+    private void updateSettingsButtons() {
+        for (SettingsButton settingsButton : settingsButtons) {
+            settingsButton.button.setMessage(settingsButton.label.get());
+        }
+    }
+
+    /**
+     * Ctrl-clicking a stack in the player's inventory voids every matching stack with a single packet
+     */
+    @Override
+    public boolean mouseClicked(double mouseX, double mouseY, int button) {
+        if (button == 0 && hasControlDown() && !hasShiftDown() && this.hoveredSlot != null && this.hoveredSlot.container == this.inventory
+                && this.hoveredSlot.hasItem() && this.inventory.getCarried().isEmpty()
+                && !this.menu.getSettings().isEnabled(NullifierSettings.FLAG_FILTER)) {
+            NullifierNetwork.CHANNEL.sendToServer(new VoidAllPacket(this.menu.containerId, this.hoveredSlot.index));
+            return true;
+        }
+        return super.mouseClicked(mouseX, mouseY, button);
     }
 
     @Override
     public void render(MatrixStack matrixStack, int mouseX, int mouseY, float partialTicks) {
         this.renderBackground(matrixStack);
         super.render(matrixStack, mouseX, mouseY, partialTicks);
+        renderTagSlotMarkers(matrixStack);
+        renderStatistics(matrixStack);
         this.renderTooltip(matrixStack, mouseX, mouseY);
     }
 
+    /**
+     * Marks the filter slots which match by tag with a # in their corner
+     */
+    private void renderTagSlotMarkers(MatrixStack matrixStack) {
+        NullifierSettings settings = this.menu.getSettings();
+        if (!settings.isEnabled(NullifierSettings.FLAG_FILTER) || !settings.isEnabled(NullifierSettings.FLAG_FILTER_TAGS)) return;
+        matrixStack.pushPose();
+        matrixStack.translate(0, 0, 300); // above the item models
+        for (int slot = 0; slot < ItemFilter.SIZE; ++slot) {
+            Slot menuSlot = this.menu.getSlot(slot);
+            if (!settings.isTagSlot(menuSlot.getSlotIndex())) continue;
+            this.font.drawShadow(matrixStack, "#", this.leftPos + menuSlot.x, this.topPos + menuSlot.y, 0xFFFF55);
+        }
+        matrixStack.popPose();
+    }
+
+    /**
+     * Draws the total and the most voided items in a column on the left of the GUI
+     */
+    private void renderStatistics(MatrixStack matrixStack) {
+        VoidStatistics statistics = this.menu.getStatistics();
+        if (statistics.getVersion() != statisticsVersion) {
+            statisticsVersion = statistics.getVersion();
+            topEntries = statistics.getTopEntries(STATISTICS_ENTRIES);
+        }
+
+        int x = this.leftPos - STATISTICS_WIDTH;
+        int y = this.topPos + 6;
+        this.font.draw(matrixStack, new TranslationTextComponent("gui.nullifier.voided", formatCount(statistics.getTotal())), x, y, 0xFFFFFF);
+        y += 10;
+        this.font.draw(matrixStack, new TranslationTextComponent("gui.nullifier.rate", formatCount(itemsPerSecond)), x, y, 0xAAAAAA);
+        y += 10;
+        int experience = this.menu.getExperienceBank().getStored();
+        if (experience > 0) {
+            this.font.draw(matrixStack, new TranslationTextComponent("gui.nullifier.experience", formatCount(experience)), x, y, 0x80FF20);
+            y += 10;
+        }
+        y += 2;
+
+        for (VoidStatistics.Entry entry : topEntries) {
+            this.itemRenderer.renderAndDecorateItem(entry.getDisplayStack(), x, y);
+            String count = formatCount(entry.getCount());
+            this.font.draw(matrixStack, entry.isFluid() ? count + "mB" : count, x + 19, y + 5, 0xFFFFFF);
+            y += STATISTICS_LINE_HEIGHT;
+        }
+    }
+
+    private static String formatCount(long count) {
+        if (count < 10_000L) return Long.toString(count);
+        if (count < 10_000_000L) return (count / 1_000L) + "k";
+        if (count < 10_000_000_000L) return (count / 1_000_000L) + "M";
+        return (count / 1_000_000_000L) + "G";
+    }
+
     protected void renderBg(MatrixStack p_230450_1_, float p_230450_2_, int p_230450_3_, int p_230450_4_) {
         RenderSystem.color4f(1.0F, 1.0F, 1.0F, 1.0F);
         this.minecraft.getTextureManager().bind(BACKGROUND_TEXTURE);
@@ -47,4 +266,14 @@ public class NullifierContainerScreen extends ContainerScreen<NullifierContainer
         int edgeSpacingY = (this.height - this.imageHeight) / 2;
         this.blit(p_230450_1_, edgeSpacingX, edgeSpacingY, 0, 0, this.imageWidth, this.imageHeight);
     }
+
+    private static class SettingsButton {
+        private final Button button;
+        private final Supplier<ITextComponent> label;
+
+        private SettingsButton(Button button, Supplier<ITextComponent> label) {
+            this.button = button;
+            this.label = label;
+        }
+    }
 }
\ No newline at end of file
@@ -13,25 +13,36 @@
 package com.callumwong.nullifier.common.blocks;
 
 import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.core.network.VoidEffectPacket;
 import net.minecraft.block.AbstractBlock;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockRenderType;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.ContainerBlock;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.inventory.container.INamedContainerProvider;
+import net.minecraft.particles.ParticleTypes;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.ActionResultType;
 import net.minecraft.util.Hand;
+import net.minecraft.util.SoundCategory;
+import net.minecraft.util.SoundEvents;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.BlockRayTraceResult;
 import net.minecraft.world.IBlockReader;
+import net.minecraft.world.IWorldReader;
 import net.minecraft.world.World;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.fml.network.NetworkHooks;
 
 import javax.annotation.Nullable;
+import java.util.Random;
 
 public class NullifierBlock extends ContainerBlock {
+    private static final int PARTICLES_PER_INTENSITY = 2;
+
     public NullifierBlock(AbstractBlock.Properties properties) {
         super(properties);
     }
@@ -62,12 +73,53 @@ public class NullifierBlock extends ContainerBlock {
         if (namedContainerProvider != null) {
             if (!(player instanceof ServerPlayerEntity)) return ActionResultType.FAIL;  // should always be true, but just in case...
             ServerPlayerEntity serverPlayerEntity = (ServerPlayerEntity)player;
-            NetworkHooks.openGui(serverPlayerEntity, namedContainerProvider, (packetBuffer) -> {});
+            TileEntity tileEntity = world.getBlockEntity(pos);
+            if (!(tileEntity instanceof NullifierTileEntity)) return ActionResultType.FAIL;
+            NullifierTileEntity nullifierTileEntity = (NullifierTileEntity)tileEntity;
+            NetworkHooks.openGui(serverPlayerEntity, namedContainerProvider, (packetBuffer) -> nullifierTileEntity.getStatistics().write(packetBuffer));
         }
 
         return ActionResultType.SUCCESS;
     }
 
+    // Fired when a neighbouring block changes
+    @Override
+    public void neighborChanged(BlockState state, World world, BlockPos pos, Block block, BlockPos fromPos, boolean isMoving) {
+        super.neighborChanged(state, world, pos, block, fromPos, isMoving);
+        notifyNeighbourChanged(world, pos, fromPos);
+    }
+
+    // Fired when the contents of a horizontally neighbouring inventory change (comparator updates)
+    @Override
+    public void onNeighborChange(BlockState state, IWorldReader world, BlockPos pos, BlockPos neighbor) {
+        super.onNeighborChange(state, world, pos, neighbor);
+        notifyNeighbourChanged(world, pos, neighbor);
+    }
+
+    private static void notifyNeighbourChanged(IBlockReader world, BlockPos pos, BlockPos neighbour) {
+        TileEntity tileEntity = world.getBlockEntity(pos);
+        if (tileEntity instanceof NullifierTileEntity) ((NullifierTileEntity)tileEntity).onNeighbourChanged(neighbour);
+    }
+
+    /**
+     * Called on the client for every VoidEffectPacket; the number of particles is capped by the packet's intensity, so it
+     *   doesn't depend on how many items were voided
+     */
+    @OnlyIn(Dist.CLIENT)
+    public static void spawnVoidEffect(World world, BlockPos pos, int intensity) {
+        Random random = world.getRandom();
+        int particles = Math.min(intensity, VoidEffectPacket.MAX_INTENSITY) * PARTICLES_PER_INTENSITY;
+        for (int i = 0; i < particles; ++i) {
+            double x = pos.getX() + 0.5 + (random.nextDouble() - 0.5) * 1.2;
+            double y = pos.getY() + 1.0 + random.nextDouble() * 0.3;
+            double z = pos.getZ() + 0.5 + (random.nextDouble() - 0.5) * 1.2;
+            world.addParticle(random.nextInt(3) == 0 ? ParticleTypes.PORTAL : ParticleTypes.SMOKE, x, y, z, 0.0, 0.02, 0.0);
+        }
+        float volume = 0.05F + 0.02F * intensity;
+        world.playLocalSound(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5, SoundEvents.FIRE_EXTINGUISH, SoundCategory.BLOCKS,
+                volume, 1.6F + random.nextFloat() * 0.4F, false);
+    }
+
     // required because the default (super method) is INVISIBLE for BlockContainers.
     @Override
     public BlockRenderType getRenderShape(BlockState state) {
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.common.capabilities;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.INBT;
+import net.minecraft.util.Direction;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+
+import java.util.Collection;
+
+public class CapabilityVoidSink {
+    @CapabilityInject(IVoidSink.class)
+    public static Capability<IVoidSink> VOID_SINK_CAPABILITY = null;
+
+    /**
+     * Called during common setup. A sink has no state of its own, so nothing is stored, and the default instance
+     *   rejects everything.
+     */
+    public static void register() {
+        CapabilityManager.INSTANCE.register(IVoidSink.class, new Capability.IStorage<IVoidSink>() {
+            @Override
+            public INBT writeNBT(Capability<IVoidSink> capability, IVoidSink instance, Direction side) {
+                return null;
+            }
+
+            @Override
+            public void readNBT(Capability<IVoidSink> capability, IVoidSink instance, Direction side, INBT nbt) {
+            }
+        }, RejectingVoidSink::new);
+    }
+
+    private static class RejectingVoidSink implements IVoidSink {
+        @Override
+        public boolean acceptsAll() {
+            return false;
+        }
+
+        @Override
+        public boolean canVoid(ItemStack stack) {
+            return false;
+        }
+
+        @Override
+        public long voidAll(Collection<ItemStack> stacks) {
+            return 0;
+        }
+
+        @Override
+        public long voidCount(Item item, long count) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.common.capabilities;
+
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+
+import java.util.Collection;
+
+/**
+ * A batch interface to a nullifier for pipe and logistics mods, exposed as CapabilityVoidSink.VOID_SINK_CAPABILITY next
+ *   to the item handler.
+ * Unlike IItemHandler.insertItem, a whole batch is handed over in one call and no stack is ever copied.
+ * Like the item and fluid handlers, it may be called from worker threads; what they void is recorded on the next tick.
+ */
+public interface IVoidSink {
+    /**
+     * @return whether every item is currently accepted (no filter or overflow mode), in which case canVoid can be skipped
+     */
+    boolean acceptsAll();
+
+    boolean canVoid(ItemStack stack);
+
+    /**
+     * Voids every stack of the batch that canVoid accepts, shrinking it to empty; rejected stacks are left untouched
+     * @return the number of items voided
+     */
+    long voidAll(Collection<ItemStack> stacks);
+
+    /**
+     * Voids count items without NBT, for networks that keep their contents as counts rather than stacks
+     * @return the number of items voided, either count or 0 if the item is rejected
+     */
+    long voidCount(Item item, long count);
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.common.capabilities;
+
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The fluid handler exposed to pipes.
+ * It has no tank: fill accepts any fluid in any amount and only reports it to the TileEntity, and nothing can be drained.
+ * One instance is built per TileEntity and shared by every side, since it holds no per-side state; like VoidItemHandler
+ *   it may be called from other threads.
+ */
+public class VoidFluidHandler implements IFluidHandler {
+    private static final int TANK_COUNT = 1;
+
+    private final NullifierTileEntity tileEntity;
+
+    public VoidFluidHandler(NullifierTileEntity tileEntity) {
+        this.tileEntity = tileEntity;
+    }
+
+    @Override
+    public int getTanks() {
+        return TANK_COUNT;
+    }
+
+    @Nonnull
+    @Override
+    public FluidStack getFluidInTank(int tank) {
+        return FluidStack.EMPTY;
+    }
+
+    @Override
+    public int getTankCapacity(int tank) {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isFluidValid(int tank, @Nonnull FluidStack stack) {
+        return true;
+    }
+
+    @Override
+    public int fill(FluidStack resource, FluidAction action) {
+        if (resource.isEmpty()) return 0;
+        if (action.execute()) tileEntity.onFluidVoided(resource);
+        return resource.getAmount();
+    }
+
+    @Nonnull
+    @Override
+    public FluidStack drain(FluidStack resource, FluidAction action) {
+        return FluidStack.EMPTY;
+    }
+
+    @Nonnull
+    @Override
+    public FluidStack drain(int maxDrain, FluidAction action) {
+        return FluidStack.EMPTY;
+    }
+}
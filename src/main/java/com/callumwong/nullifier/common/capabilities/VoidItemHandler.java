@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.common.capabilities;
+
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.core.metrics.NullifierMetrics;
+import com.callumwong.nullifier.core.metrics.VoidSource;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The item handler exposed to hoppers and pipes.
+ * Unlike the InvWrapper around NullifierContents used by the GUI, inserting never copies the stack and never writes to a
+ *   slot; the stack is only counted by the TileEntity, whose dirty marking is deferred to the end of the tick.
+ * Only a single slot is reported so that pipes which probe every slot stop after the first one.
+ * Stacks rejected by the nullifier's filter are handed back untouched, so pipes route them elsewhere. Sides set to
+ *   filtered get their own instance which applies the filter even while filter mode is off.
+ * Every call is counted in the nullifier's dimension metrics, and a sample of them is timed.
+ * Safe to call from other threads: it keeps no stack storage, and the TileEntity hands anything voided off the server
+ *   thread to ConcurrentVoidBuffer instead of touching the world.
+ */
+public class VoidItemHandler implements IItemHandler {
+    private static final int SLOT_COUNT = 1;
+    private static final int SLOT_LIMIT = 64;
+
+    private final NullifierTileEntity tileEntity;
+    private final boolean filtered;
+
+    public VoidItemHandler(NullifierTileEntity tileEntity) {
+        this(tileEntity, false);
+    }
+
+    public VoidItemHandler(NullifierTileEntity tileEntity, boolean filtered) {
+        this.tileEntity = tileEntity;
+        this.filtered = filtered;
+    }
+
+    @Override
+    public int getSlots() {
+        return SLOT_COUNT;
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack getStackInSlot(int slot) {
+        return ItemStack.EMPTY;
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate) {
+        if (stack.isEmpty()) return ItemStack.EMPTY;
+        long sampleStart = NullifierMetrics.startLatencySample();
+        boolean accepted = tileEntity.canVoid(stack, filtered);
+        if (accepted && !simulate) tileEntity.onItemVoided(stack, VoidSource.AUTOMATION);
+        tileEntity.getMetrics().recordInsert(!accepted);
+        NullifierMetrics.endLatencySample(sampleStart);
+        return accepted ? ItemStack.EMPTY : stack;
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack extractItem(int slot, int amount, boolean simulate) {
+        return ItemStack.EMPTY;
+    }
+
+    @Override
+    public int getSlotLimit(int slot) {
+        return SLOT_LIMIT;
+    }
+
+    @Override
+    public boolean isItemValid(int slot, @Nonnull ItemStack stack) {
+        return tileEntity.canVoid(stack, filtered);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.common.capabilities;
+
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.core.metrics.VoidSource;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+
+import java.util.Collection;
+
+/**
+ * The IVoidSink of a nullifier; the batch counterpart of VoidItemHandler, with the same filter and overflow rules
+ */
+public class VoidSink implements IVoidSink {
+    private final NullifierTileEntity tileEntity;
+
+    public VoidSink(NullifierTileEntity tileEntity) {
+        this.tileEntity = tileEntity;
+    }
+
+    @Override
+    public boolean acceptsAll() {
+        return tileEntity.acceptsAll();
+    }
+
+    @Override
+    public boolean canVoid(ItemStack stack) {
+        return !stack.isEmpty() && tileEntity.canVoid(stack);
+    }
+
+    @Override
+    public long voidAll(Collection<ItemStack> stacks) {
+        boolean acceptsAll = tileEntity.acceptsAll();
+        long voided = 0;
+        for (ItemStack stack : stacks) {
+            if (stack.isEmpty()) continue;
+            if (!acceptsAll && !tileEntity.canVoid(stack)) {
+                tileEntity.getMetrics().recordInsert(true);
+                continue;
+            }
+            int count = stack.getCount();
+            tileEntity.onItemsVoided(stack.getItem(), count, stack.getTag(), VoidSource.AUTOMATION);
+            stack.setCount(0);
+            voided += count;
+        }
+        tileEntity.getMetrics().recordInsert(false);
+        return voided;
+    }
+
+    @Override
+    public long voidCount(Item item, long count) {
+        if (count <= 0 || item == Items.AIR) return 0;
+        boolean accepted = tileEntity.acceptsAll() || tileEntity.canVoid(item);
+        tileEntity.getMetrics().recordInsert(!accepted);
+        if (!accepted) return 0;
+        tileEntity.onItemsVoided(item, count, VoidSource.AUTOMATION);
+        return count;
+    }
+}
@@ -12,25 +12,49 @@
 
 package com.callumwong.nullifier.common.containers;
 
+import com.callumwong.nullifier.common.tiles.ExperienceBank;
+import com.callumwong.nullifier.common.tiles.ItemFilter;
+import com.callumwong.nullifier.common.tiles.NullifierSettings;
 import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.common.tiles.RecoveryBuffer;
+import com.callumwong.nullifier.common.tiles.VoidStatistics;
 import com.callumwong.nullifier.core.event.EventHandler;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.container.ClickType;
 import net.minecraft.inventory.container.Container;
 import net.minecraft.inventory.container.Slot;
 import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import javax.annotation.Nullable;
 
 public class NullifierContainer extends Container {
     private NullifierContents nullifierContents;
-
-    public static NullifierContainer createContainerServerSide(int windowID, PlayerInventory playerInventory, NullifierContents nullifierContents) {
-        return new NullifierContainer(windowID, playerInventory, nullifierContents);
+    private IInventory filterInventory;
+    private NullifierSettings settings;
+    private ExperienceBank experienceBank;
+    @Nullable
+    private RecoveryBuffer recoveryBuffer; // server side only
+    private VoidStatistics statistics;
+    private boolean clientSide;
+
+    public static NullifierContainer createContainerServerSide(int windowID, PlayerInventory playerInventory, NullifierContents nullifierContents, IInventory filterInventory, NullifierSettings settings, ExperienceBank experienceBank, RecoveryBuffer recoveryBuffer, VoidStatistics statistics) {
+        return new NullifierContainer(windowID, playerInventory, nullifierContents, filterInventory, settings, experienceBank, recoveryBuffer, statistics, false);
     }
 
     public static NullifierContainer createContainerClientSide(int windowID, PlayerInventory playerInventory, net.minecraft.network.PacketBuffer extraData) {
         NullifierContents nullifierContents = NullifierContents.createForClientSideContainer(NULLIFIER_SLOT_COUNT);
+        IInventory filterInventory = new Inventory(ItemFilter.SIZE); // mirror of the ghost items, filled in by slot updates
+        NullifierSettings settings = new NullifierSettings(); // filled in by the data slots
+        ExperienceBank experienceBank = new ExperienceBank(); // likewise
+        VoidStatistics statistics = new VoidStatistics();
+        statistics.read(extraData); // snapshot written by NullifierBlock when the GUI was opened
 
-        return new NullifierContainer(windowID, playerInventory, nullifierContents);
+        return new NullifierContainer(windowID, playerInventory, nullifierContents, filterInventory, settings, experienceBank, null, statistics, true);
     }
 
     //  0 - 8 = hotbar slots (which will map to the InventoryPlayer slot numbers 0 - 8)
@@ -50,18 +74,24 @@ public class NullifierContainer extends Container {
 
     private static final int NULLIFIER_SLOT_COUNT = NullifierTileEntity.NUMBER_OF_SLOTS;
 
-    public NullifierContainer(int windowID, PlayerInventory invPlayer, NullifierContents nullifierContents) {
+    public NullifierContainer(int windowID, PlayerInventory invPlayer, NullifierContents nullifierContents, IInventory filterInventory, NullifierSettings settings, ExperienceBank experienceBank, @Nullable RecoveryBuffer recoveryBuffer, VoidStatistics statistics, boolean clientSide) {
         super(EventHandler.nullifierContainerType, windowID);
         if (EventHandler.nullifierContainerType == null)
             throw new IllegalStateException("Must initialise containerTypeContainerFurnace before constructing a ContainerFurnace!");
 
         this.nullifierContents = nullifierContents;
+        this.filterInventory = filterInventory;
+        this.settings = settings;
+        this.experienceBank = experienceBank;
+        this.recoveryBuffer = recoveryBuffer;
+        this.statistics = statistics;
+        this.clientSide = clientSide;
         nullifierContents.startOpen(invPlayer.player);
 
         // Add the nullifier slots
         for(int x = 0; x < 3; ++x) {
             for(int y = 0; y < 3; ++y) {
-                this.addSlot(new Slot(nullifierContents, x + y * 3, 62 + y * 18, 17 + x * 18));
+                this.addSlot(new NullifierSlot(nullifierContents, filterInventory, settings, clientSide, x + y * 3, 62 + y * 18, 17 + x * 18));
             }
         }
 
@@ -76,6 +106,30 @@ public class NullifierContainer extends Container {
         for(int l = 0; l < 9; ++l) {
             this.addSlot(new Slot(invPlayer, l, 8 + l * 18, 142));
         }
+
+        this.addDataSlots(settings);
+        this.addDataSlots(experienceBank);
+    }
+
+    public NullifierSettings getSettings() {
+        return settings;
+    }
+
+    public ExperienceBank getExperienceBank() {
+        return experienceBank;
+    }
+
+    public VoidStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Called on the server when the client screen presses one of the mode buttons
+     */
+    @Override
+    public boolean clickMenuButton(PlayerEntity player, int buttonId) {
+        return settings.handleButton(buttonId) || experienceBank.handleButton(player, buttonId)
+                || (recoveryBuffer != null && recoveryBuffer.handleButton(player, buttonId));
     }
 
     @Override
@@ -83,7 +137,38 @@ public class NullifierContainer extends Container {
         return nullifierContents.stillValid(player);
     }
 
+    private boolean isFilterMode() {
+        return settings.isEnabled(NullifierSettings.FLAG_FILTER);
+    }
+
+    /**
+     * In filter mode, left-clicking a nullifier slot sets its ghost item to a single copy of whatever is held (or clears
+     *   it) without taking anything from the player, and right-clicking it toggles whether it matches by tag
+     */
+    @Override
+    public ItemStack clicked(int slotId, int dragType, ClickType clickType, PlayerEntity player) {
+        if (slotId >= 0 && slotId < NULLIFIER_SLOT_COUNT && isFilterMode()) {
+            // the slots are added column by column, so the filter index is the slot's own index rather than slotId
+            int filterSlot = this.slots.get(slotId).getSlotIndex();
+            if (clickType == ClickType.PICKUP && dragType == 1) {
+                settings.toggleTagSlot(filterSlot);
+            } else if (clickType == ClickType.PICKUP) {
+                ItemStack carried = player.inventory.getCarried();
+                filterInventory.setItem(filterSlot, carried.isEmpty() ? ItemStack.EMPTY : ItemHandlerHelper.copyStackWithSize(carried, 1));
+            }
+            return ItemStack.EMPTY;
+        }
+
+        ItemStack result = super.clicked(slotId, dragType, clickType, player);
+        // The client predicts voids by setting the slots, which would leave stale ghost items in the mirror; outside of
+        //   filter mode the mirror isn't shown and the server resends every ghost when filter mode is turned on
+        if (clientSide && !isFilterMode()) filterInventory.clearContent();
+        return result;
+    }
+
     public ItemStack quickMoveStack(PlayerEntity player, int sourceSlotIndex) {
+        if (isFilterMode()) return quickMoveToFilter(sourceSlotIndex);
+
         ItemStack itemstack = ItemStack.EMPTY;
         Slot slot = this.slots.get(sourceSlotIndex);
         if (slot != null && slot.hasItem()) {
@@ -111,6 +196,55 @@ public class NullifierContainer extends Container {
         return itemstack;
     }
 
+    /**
+     * Shift-clicking an item in filter mode adds it to the first free ghost slot, unless it is already there
+     */
+    private ItemStack quickMoveToFilter(int sourceSlotIndex) {
+        if (sourceSlotIndex < NULLIFIER_SLOT_COUNT) return ItemStack.EMPTY;
+        Slot slot = this.slots.get(sourceSlotIndex);
+        if (slot == null || !slot.hasItem()) return ItemStack.EMPTY;
+
+        ItemStack sourceItemStack = slot.getItem();
+        int freeSlot = -1;
+        for (int i = 0; i < NULLIFIER_SLOT_COUNT; ++i) {
+            ItemStack ghost = filterInventory.getItem(i);
+            if (ghost.isEmpty()) {
+                if (freeSlot < 0) freeSlot = i;
+            } else if (ItemStack.isSame(ghost, sourceItemStack) && ItemStack.tagMatches(ghost, sourceItemStack)) {
+                return ItemStack.EMPTY;
+            }
+        }
+        if (freeSlot >= 0) filterInventory.setItem(freeSlot, ItemHandlerHelper.copyStackWithSize(sourceItemStack, 1));
+        return ItemStack.EMPTY;
+    }
+
+    /**
+     * Voids every stack in the player's inventory matching the one in sourceSlotIndex, sent by VoidAllPacket.
+     * The slots are emptied without a slot update each; the whole inventory is sent once at the end.
+     */
+    public void voidAllMatching(ServerPlayerEntity player, int sourceSlotIndex) {
+        if (isFilterMode() || sourceSlotIndex < NULLIFIER_SLOT_COUNT || sourceSlotIndex >= this.slots.size()) return;
+        ItemStack template = this.slots.get(sourceSlotIndex).getItem().copy();
+        if (template.isEmpty()) return;
+
+        boolean changed = false;
+        for (int i = NULLIFIER_SLOT_COUNT; i < this.slots.size(); ++i) {
+            Slot slot = this.slots.get(i);
+            ItemStack stack = slot.getItem();
+            if (stack.isEmpty() || !ItemStack.isSame(stack, template) || !ItemStack.tagMatches(stack, template)) continue;
+            if (!slot.mayPickup(player)) continue;
+            nullifierContents.setItem(0, stack); // voids and counts it, exactly like a shift-click would
+            slot.set(ItemStack.EMPTY);
+            changed = true;
+        }
+        if (!changed) return;
+
+        player.ignoreSlotUpdateHack = true;
+        broadcastChanges();
+        player.ignoreSlotUpdateHack = false;
+        player.refreshContainer(this, getItems());
+    }
+
     @Override
     public void removed(PlayerEntity player) {
         super.removed(player);
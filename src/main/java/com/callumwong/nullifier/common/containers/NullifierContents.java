@@ -13,6 +13,8 @@
 package com.callumwong.nullifier.common.containers;
 
 import com.callumwong.nullifier.core.interfaces.Notify;
+import com.callumwong.nullifier.core.interfaces.PlayerNotify;
+import com.callumwong.nullifier.core.interfaces.VoidNotify;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.item.ItemStack;
@@ -58,11 +60,15 @@ public class NullifierContents implements IInventory {
         this.markDirtyNotificationLambda = markDirtyNotificationLambda;
     }
 
-    public void setOpenInventoryNotificationLambda(Notify openInventoryNotificationLambda) {
+    public void setVoidNotificationLambda(VoidNotify voidNotificationLambda) {
+        this.voidNotificationLambda = voidNotificationLambda;
+    }
+
+    public void setOpenInventoryNotificationLambda(PlayerNotify openInventoryNotificationLambda) {
         this.openInventoryNotificationLambda = openInventoryNotificationLambda;
     }
 
-    public void setCloseInventoryNotificationLambda(Notify closeInventoryNotificationLambda) {
+    public void setCloseInventoryNotificationLambda(PlayerNotify closeInventoryNotificationLambda) {
         this.closeInventoryNotificationLambda = closeInventoryNotificationLambda;
     }
 
@@ -83,12 +89,12 @@ public class NullifierContents implements IInventory {
 
     @Override
     public void startOpen(PlayerEntity player) {
-        openInventoryNotificationLambda.invoke();
+        openInventoryNotificationLambda.invoke(player);
     }
 
     @Override
     public void stopOpen(PlayerEntity player) {
-        closeInventoryNotificationLambda.invoke();
+        closeInventoryNotificationLambda.invoke(player);
     }
 
     @Override
@@ -123,6 +129,7 @@ public class NullifierContents implements IInventory {
 
     @Override
     public void setItem(int index, ItemStack stack) {
+        if (!stack.isEmpty()) voidNotificationLambda.invoke(stack);
         nullifierContents.setStackInSlot(index, stack);
     }
 
@@ -145,7 +152,8 @@ public class NullifierContents implements IInventory {
 
     private Predicate<PlayerEntity> canPlayerAccessInventoryLambda = x -> true;
     private Notify markDirtyNotificationLambda = () -> {};
-    private Notify openInventoryNotificationLambda = () -> {};
-    private Notify closeInventoryNotificationLambda = () -> {};
+    private VoidNotify voidNotificationLambda = stack -> {};
+    private PlayerNotify openInventoryNotificationLambda = player -> {};
+    private PlayerNotify closeInventoryNotificationLambda = player -> {};
     private final ReadOnlyItemStackHandler nullifierContents;
 }
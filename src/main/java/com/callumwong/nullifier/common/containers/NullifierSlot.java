@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.common.containers;
+
+import com.callumwong.nullifier.common.tiles.NullifierSettings;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.inventory.IInventory;
+import net.minecraft.inventory.container.Slot;
+import net.minecraft.item.ItemStack;
+
+/**
+ * One of the nine nullifier slots.
+ * Normally anything put into it is voided through NullifierContents. While filter mode is on it shows the ghost item
+ *   from the filter inventory instead, and can't be placed into or taken from; NullifierContainer.clicked sets the ghost.
+ * On the client it only mirrors what the server sends, which always goes into the filter inventory since the client
+ *   never displays voided items.
+ */
+public class NullifierSlot extends Slot {
+    private final IInventory filterInventory;
+    private final NullifierSettings settings;
+    private final boolean clientSide;
+
+    public NullifierSlot(NullifierContents nullifierContents, IInventory filterInventory, NullifierSettings settings, boolean clientSide, int index, int x, int y) {
+        super(nullifierContents, index, x, y);
+        this.filterInventory = filterInventory;
+        this.settings = settings;
+        this.clientSide = clientSide;
+    }
+
+    public boolean isFilter() {
+        return settings.isEnabled(NullifierSettings.FLAG_FILTER);
+    }
+
+    @Override
+    public ItemStack getItem() {
+        return isFilter() ? filterInventory.getItem(getSlotIndex()) : super.getItem();
+    }
+
+    @Override
+    public void set(ItemStack stack) {
+        if (clientSide) {
+            filterInventory.setItem(getSlotIndex(), stack);
+            setChanged();
+        } else if (!isFilter()) {
+            super.set(stack);
+        }
+    }
+
+    @Override
+    public boolean mayPlace(ItemStack stack) {
+        return !isFilter() && super.mayPlace(stack);
+    }
+
+    @Override
+    public boolean mayPickup(PlayerEntity player) {
+        return !isFilter() && super.mayPickup(player);
+    }
+}
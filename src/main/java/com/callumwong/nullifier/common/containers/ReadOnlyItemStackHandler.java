@@ -13,14 +13,54 @@
 package com.callumwong.nullifier.common.containers;
 
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.NonNullList;
+import net.minecraftforge.items.ItemHandlerHelper;
 import net.minecraftforge.items.ItemStackHandler;
 
 import javax.annotation.Nonnull;
 
+/**
+ * An ItemStackHandler which never retains anything that is put into it.
+ * The inherited stacks list is replaced by a shared empty list, so a nullifier doesn't keep the last stacks inserted into
+ *   each slot (and their NBT) reachable; every method that would have touched it is overridden.
+ */
 public class ReadOnlyItemStackHandler extends ItemStackHandler {
+    private static final NonNullList<ItemStack> NO_STACKS = NonNullList.withSize(0, ItemStack.EMPTY);
+
+    private final int size;
+
     public ReadOnlyItemStackHandler(int size) {
-        stacks = NonNullList.withSize(size, ItemStack.EMPTY);
+        super(NO_STACKS);
+        this.size = size;
+    }
+
+    @Override
+    public int getSlots() {
+        return size;
+    }
+
+    @Override
+    public void setSize(int size) {
+        // Fixed size, nothing to resize
+    }
+
+    @Override
+    public void setStackInSlot(int slot, @Nonnull ItemStack stack) {
+        validateSlotIndex(slot);
+        onContentsChanged(slot);
+    }
+
+    @Nonnull
+    @Override
+    public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate) {
+        if (stack.isEmpty()) return ItemStack.EMPTY;
+        if (!isItemValid(slot, stack)) return stack;
+        validateSlotIndex(slot);
+
+        int limit = getStackLimit(slot, stack);
+        if (!simulate) onContentsChanged(slot);
+        return stack.getCount() > limit ? ItemHandlerHelper.copyStackWithSize(stack, stack.getCount() - limit) : ItemStack.EMPTY;
     }
 
     @Nonnull
@@ -34,4 +74,20 @@ public class ReadOnlyItemStackHandler extends ItemStackHandler {
     public ItemStack getStackInSlot(int slot) {
         return ItemStack.EMPTY;
     }
+
+    @Override
+    public CompoundNBT serializeNBT() {
+        return new CompoundNBT();
+    }
+
+    @Override
+    public void deserializeNBT(CompoundNBT nbt) {
+        // Nothing is ever stored
+    }
+
+    @Override
+    protected void validateSlotIndex(int slot) {
+        if (slot < 0 || slot >= size)
+            throw new RuntimeException("Slot " + slot + " not in valid range - [0," + size + ")");
+    }
 }
\ No newline at end of file
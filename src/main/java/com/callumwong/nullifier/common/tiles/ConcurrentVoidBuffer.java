@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.common.tiles;
+
+import com.callumwong.nullifier.core.metrics.VoidSource;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.item.Item;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What a nullifier voided on threads other than the server thread, waiting to be recorded on it.
+ * Off-thread callers only add to a striped counter per item or fluid; nothing that touches the world or the
+ *   statistics happens until OffThreadVoidQueue drains the buffer on the server thread.
+ * Draining subtracts the amount it read rather than resetting the counter, so concurrent additions are never lost.
+ */
+public class ConcurrentVoidBuffer {
+    private final Map<Item, LongAdder> items = new ConcurrentHashMap<>();
+    private final Map<Fluid, LongAdder> fluids = new ConcurrentHashMap<>();
+    private final AtomicBoolean queued = new AtomicBoolean();
+
+    /**
+     * @return whether the caller has to queue the nullifier for draining
+     */
+    public boolean addItem(Item item, long count) {
+        counter(items, item).add(count);
+        return !queued.get() && queued.compareAndSet(false, true);
+    }
+
+    /**
+     * @return whether the caller has to queue the nullifier for draining
+     */
+    public boolean addFluid(Fluid fluid, long amount) {
+        counter(fluids, fluid).add(amount);
+        return !queued.get() && queued.compareAndSet(false, true);
+    }
+
+    /**
+     * On Java 8 computeIfAbsent locks the key's bin even when the key is present, so it's only used for new keys; the
+     *   common case is a plain, lock-free get
+     */
+    private static <K> LongAdder counter(Map<K, LongAdder> counters, K key) {
+        LongAdder counter = counters.get(key);
+        return counter != null ? counter : counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    /**
+     * Server thread only
+     */
+    public void drainTo(NullifierTileEntity tileEntity) {
+        // Cleared first: anything added from here on queues the nullifier again, and may also be picked up below
+        queued.set(false);
+        for (Map.Entry<Item, LongAdder> entry : items.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count == 0) continue;
+            entry.getValue().add(-count);
+            tileEntity.recordItemsVoided(entry.getKey(), count, VoidSource.AUTOMATION);
+        }
+        for (Map.Entry<Fluid, LongAdder> entry : fluids.entrySet()) {
+            long amount = entry.getValue().sum();
+            if (amount == 0) continue;
+            entry.getValue().add(-amount);
+            tileEntity.onFluidsVoided(entry.getKey(), amount);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.common.tiles;
+
+import com.callumwong.nullifier.core.interfaces.Notify;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.IIntArray;
+
+/**
+ * The experience a nullifier absorbed from orbs, which players can withdraw from the GUI.
+ * Like NullifierSettings it is synced to the open GUI through data slots; those are sent as shorts, so the amount is
+ *   split over two slots of 16 bits each.
+ */
+public class ExperienceBank implements IIntArray {
+    // continue after the NullifierSettings button ids, both are handled by NullifierContainer.clickMenuButton
+    public static final int BUTTON_WITHDRAW_LEVEL = 22;
+    public static final int BUTTON_WITHDRAW_ALL = 23;
+
+    private static final int INDEX_LOW = 0;
+    private static final int INDEX_HIGH = 1;
+    private static final int DATA_COUNT = 2;
+    private static final int HALF_BITS = 16;
+    private static final int HALF_MASK = (1 << HALF_BITS) - 1;
+
+    private int stored;
+    private Notify changeNotificationLambda = () -> {};
+
+    public void setChangeNotificationLambda(Notify changeNotificationLambda) {
+        this.changeNotificationLambda = changeNotificationLambda;
+    }
+
+    public int getStored() {
+        return stored;
+    }
+
+    public void deposit(int amount) {
+        if (amount <= 0) return;
+        stored = (int) Math.min(Integer.MAX_VALUE, (long) stored + amount);
+        changeNotificationLambda.invoke();
+    }
+
+    /**
+     * Gives the player enough experience for their next level, or everything
+     * @return whether the button id was recognised
+     */
+    public boolean handleButton(PlayerEntity player, int buttonId) {
+        int amount;
+        switch (buttonId) {
+            case BUTTON_WITHDRAW_LEVEL:
+                amount = Math.min(stored, player.getXpNeededForNextLevel());
+                break;
+            case BUTTON_WITHDRAW_ALL:
+                amount = stored;
+                break;
+            default:
+                return false;
+        }
+        if (amount <= 0) return true;
+
+        stored -= amount;
+        player.giveExperiencePoints(amount);
+        changeNotificationLambda.invoke();
+        return true;
+    }
+
+    public void save(CompoundNBT nbt) {
+        nbt.putInt("Experience", stored);
+    }
+
+    public void load(CompoundNBT nbt) {
+        stored = Math.max(0, nbt.getInt("Experience"));
+    }
+
+    @Override
+    public int get(int index) {
+        switch (index) {
+            case INDEX_LOW:
+                return stored & HALF_MASK;
+            case INDEX_HIGH:
+                return stored >>> HALF_BITS;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void set(int index, int value) {
+        switch (index) {
+            case INDEX_LOW:
+                stored = (stored & ~HALF_MASK) | (value & HALF_MASK);
+                break;
+            case INDEX_HIGH:
+                stored = (stored & HALF_MASK) | ((value & HALF_MASK) << HALF_BITS);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return DATA_COUNT;
+    }
+}
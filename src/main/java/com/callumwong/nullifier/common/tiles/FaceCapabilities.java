@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.common.tiles;
+
+import com.callumwong.nullifier.common.capabilities.CapabilityVoidSink;
+import com.callumwong.nullifier.common.capabilities.IVoidSink;
+import net.minecraft.util.Direction;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.common.util.NonNullSupplier;
+import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import net.minecraftforge.items.CapabilityItemHandler;
+import net.minecraftforge.items.IItemHandler;
+
+import javax.annotation.Nullable;
+
+/**
+ * The capabilities a nullifier exposes on each side, according to the face modes in NullifierSettings.
+ * Pipes query every side, often every tick, so the answers are kept in per-Direction tables of LazyOptionals that are
+ *   only rebuilt for a face whose mode changed; a query is an array lookup and allocates nothing. Rebuilding a face
+ *   invalidates its old LazyOptionals, which tells connected pipes to re-evaluate that side.
+ * Queries without a side get everything, as before.
+ */
+class FaceCapabilities {
+    private static final int UNSIDED = Direction.values().length;
+
+    private final NonNullSupplier<IItemHandler> itemHandler;
+    private final NonNullSupplier<IItemHandler> filteredItemHandler;
+    private final NonNullSupplier<IFluidHandler> fluidHandler;
+    private final NonNullSupplier<IVoidSink> voidSink;
+
+    private final int[] modes = new int[UNSIDED + 1];
+    private final LazyOptional<?>[] items = new LazyOptional<?>[UNSIDED + 1];
+    private final LazyOptional<?>[] fluids = new LazyOptional<?>[UNSIDED + 1];
+    private final LazyOptional<?>[] sinks = new LazyOptional<?>[UNSIDED + 1];
+
+    FaceCapabilities(IItemHandler itemHandler, IItemHandler filteredItemHandler, IFluidHandler fluidHandler, IVoidSink voidSink) {
+        this.itemHandler = () -> itemHandler;
+        this.filteredItemHandler = () -> filteredItemHandler;
+        this.fluidHandler = () -> fluidHandler;
+        this.voidSink = () -> voidSink;
+        clear();
+    }
+
+    /**
+     * Rebuilds the faces whose mode changed since the last call
+     */
+    void update(NullifierSettings settings) {
+        for (Direction face : Direction.values()) {
+            build(face.get3DDataValue(), settings.getFaceMode(face));
+        }
+        build(UNSIDED, NullifierSettings.FACE_BOTH);
+    }
+
+    private void build(int index, int mode) {
+        if (modes[index] == mode) return;
+        invalidate(index);
+        modes[index] = mode;
+        boolean exposesItems = mode == NullifierSettings.FACE_BOTH || mode == NullifierSettings.FACE_ITEMS;
+        if (exposesItems) items[index] = LazyOptional.of(itemHandler);
+        else if (mode == NullifierSettings.FACE_FILTERED) items[index] = LazyOptional.of(filteredItemHandler);
+        if (mode == NullifierSettings.FACE_BOTH || mode == NullifierSettings.FACE_FLUIDS) fluids[index] = LazyOptional.of(fluidHandler);
+        // the batch sink bypasses the item handler, so it is left out where the items have to go through the filter
+        if (exposesItems) sinks[index] = LazyOptional.of(voidSink);
+    }
+
+    /**
+     * @return the capability on the given side, or null if it isn't one of the nullifier's own
+     */
+    @Nullable
+    <T> LazyOptional<T> get(Capability<T> cap, @Nullable Direction side) {
+        int index = side == null ? UNSIDED : side.get3DDataValue();
+        LazyOptional<?> capability;
+        if (cap == CapabilityItemHandler.ITEM_HANDLER_CAPABILITY) capability = items[index];
+        else if (cap == CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY) capability = fluids[index];
+        else if (cap == CapabilityVoidSink.VOID_SINK_CAPABILITY) capability = sinks[index];
+        else return null;
+        return capability == null ? LazyOptional.empty() : capability.cast();
+    }
+
+    /**
+     * Invalidates every face; the next update builds them all again
+     */
+    void clear() {
+        for (int index = 0; index <= UNSIDED; ++index) {
+            invalidate(index);
+            modes[index] = -1;
+        }
+    }
+
+    private void invalidate(int index) {
+        invalidate(items, index);
+        invalidate(fluids, index);
+        invalidate(sinks, index);
+    }
+
+    private static void invalidate(LazyOptional<?>[] table, int index) {
+        if (table[index] == null) return;
+        table[index].invalidate();
+        table[index] = null;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.common.tiles;
+
+import com.callumwong.nullifier.core.config.NullifierConfig;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.FlowingFluidBlock;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.state.properties.BlockStateProperties;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.fluids.FluidAttributes;
+
+/**
+ * Removes the fluid connected to a drain-mode nullifier, breadth first from the blocks next to it.
+ * The frontier and the visited set hold long-packed BlockPos values, and a fill resumes where the previous run
+ *   stopped, drainBlocksPerRun blocks at a time, so a whole lake is removed over several ticks within the scheduler's
+ *   budget. A fill stays within drainRadius of the nullifier and ends when the frontier is empty or drainMaxBlocks
+ *   blocks were removed; the next run starts a new one, which finds nothing (and backs off) unless fluid came back.
+ * Blocks are replaced without neighbour or shape updates, so the fluid around a removed block doesn't recalculate its
+ *   flow and the fill doesn't set off a cascade of fluid ticks; the fluid beyond the radius stays as it is until
+ *   something else updates it.
+ * Sources are counted in the statistics as a bucket each, flowing fluid is removed without being counted.
+ * Driven by NullifierScheduler. Server thread only.
+ */
+public class FluidDrainer {
+    // 2 sends the change to clients; without 1 the neighbours aren't notified, and 16 skips their shape updates
+    private static final int SET_BLOCK_FLAGS = 2 | 16;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final NullifierTileEntity tileEntity;
+    private final LongArrayFIFOQueue frontier = new LongArrayFIFOQueue();
+    private final LongOpenHashSet visited = new LongOpenHashSet();
+    private final BlockPos.Mutable pos = new BlockPos.Mutable();
+    private final BlockPos.Mutable neighbour = new BlockPos.Mutable();
+    private int removed;
+
+    public FluidDrainer(NullifierTileEntity tileEntity) {
+        this.tileEntity = tileEntity;
+    }
+
+    /**
+     * Abandons the current fill and releases its memory
+     */
+    public void reset() {
+        frontier.clear();
+        frontier.trim();
+        visited.clear();
+        visited.trim();
+        removed = 0;
+    }
+
+    /**
+     * Runs the next part of the current fill, starting a new one if the last one ended
+     * @return whether any fluid was removed
+     */
+    public boolean drain(World world, BlockPos origin) {
+        if (frontier.isEmpty()) start(world, origin);
+
+        boolean drained = false;
+        for (int i = 0; i < NullifierConfig.drainBlocksPerRun && !frontier.isEmpty(); ++i) {
+            pos.set(frontier.dequeueLong());
+            FluidState fluidState = world.getFluidState(pos);
+            if (fluidState.isEmpty()) continue;
+
+            if (remove(world, fluidState)) {
+                drained = true;
+                if (++removed >= NullifierConfig.drainMaxBlocks) {
+                    reset();
+                    break;
+                }
+            }
+            // fluid that can't be removed (kelp, seagrass) is still part of the body of fluid, so the fill goes on through it
+            for (Direction direction : DIRECTIONS) {
+                visit(world, origin, pos.getX() + direction.getStepX(), pos.getY() + direction.getStepY(), pos.getZ() + direction.getStepZ());
+            }
+        }
+        return drained;
+    }
+
+    private void start(World world, BlockPos origin) {
+        reset();
+        visited.add(origin.asLong());
+        for (Direction direction : DIRECTIONS) {
+            visit(world, origin, origin.getX() + direction.getStepX(), origin.getY() + direction.getStepY(), origin.getZ() + direction.getStepZ());
+        }
+    }
+
+    private void visit(World world, BlockPos origin, int x, int y, int z) {
+        int radius = NullifierConfig.drainRadius;
+        if (Math.abs(x - origin.getX()) > radius || Math.abs(y - origin.getY()) > radius || Math.abs(z - origin.getZ()) > radius) return;
+        long key = BlockPos.asLong(x, y, z);
+        if (!visited.add(key)) return;
+        // never loads chunks
+        if (!world.isLoaded(neighbour.set(x, y, z))) return;
+        frontier.enqueue(key);
+    }
+
+    /**
+     * @return whether the fluid at pos was removed
+     */
+    private boolean remove(World world, FluidState fluidState) {
+        BlockState blockState = world.getBlockState(pos);
+        if (blockState.getBlock() instanceof FlowingFluidBlock) {
+            world.setBlock(pos, Blocks.AIR.defaultBlockState(), SET_BLOCK_FLAGS);
+        } else if (blockState.hasProperty(BlockStateProperties.WATERLOGGED) && blockState.getValue(BlockStateProperties.WATERLOGGED)) {
+            world.setBlock(pos, blockState.setValue(BlockStateProperties.WATERLOGGED, false), SET_BLOCK_FLAGS);
+        } else {
+            return false;
+        }
+        if (fluidState.isSource()) tileEntity.onFluidsVoided(fluidState.getType(), FluidAttributes.BUCKET_VOLUME);
+        return true;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.common.tiles;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.tags.ITag;
+import net.minecraft.tags.ItemTags;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.util.Constants;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The ghost items set in a nullifier's slots while filter mode is on, and the compiled form used to match against them.
+ * The ghost items are compiled into a bitset over item registry ids, with tag matching expanded into that same bitset,
+ *   so matching a stack is a single bit lookup no matter how many slots or tags are involved. Items which must also match
+ *   NBT go into a second bitset, and are confirmed through a set of precomputed (item id, NBT hash) keys.
+ * The compiled form is built on the server thread whenever the ghost items or the match options change (the TileEntity
+ *   calls compile) and whenever tags are reloaded (see tick), then published through a volatile field. Matching only
+ *   reads that field, never the ghost items or the tags, so worker threads can match while the filter is being edited.
+ */
+public class ItemFilter {
+    public static final int SIZE = 9;
+
+    private static volatile int tagGeneration;
+    // the filters which have to be recompiled when tags change; server thread only
+    private static final Set<ItemFilter> LIVE = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static int compiledTagGeneration;
+
+    private final Inventory inventory = new Inventory(SIZE);
+    private volatile Compiled compiled;
+    private int tagSlots;
+    private boolean matchNbt;
+
+    /**
+     * Fired on whichever thread reloaded the tags; the filters are recompiled by the next tick
+     */
+    public static void onTagsUpdated() {
+        ++tagGeneration;
+    }
+
+    /**
+     * Called at the end of every server tick
+     */
+    public static void tick() {
+        int generation = tagGeneration;
+        if (generation == compiledTagGeneration) return;
+        compiledTagGeneration = generation;
+        for (ItemFilter filter : LIVE) {
+            filter.compiled = filter.build();
+        }
+    }
+
+    public static void clear() {
+        LIVE.clear();
+    }
+
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    /**
+     * Rebuilds the compiled form from the ghost items and keeps it up to date with tag reloads until release.
+     * Server thread only.
+     * @param tagSlots a bit for every slot whose ghost item also matches the items sharing one of its tags; only those
+     *   slots are expanded, so a single broad tag (logs, stone) can't silently widen the whole filter
+     */
+    public void compile(int tagSlots, boolean matchNbt) {
+        this.tagSlots = tagSlots;
+        this.matchNbt = matchNbt;
+        compiled = build();
+        LIVE.add(this);
+    }
+
+    /**
+     * Stops recompiling this filter; it matches nothing until compiled again. Server thread only.
+     */
+    public void release() {
+        LIVE.remove(this);
+        compiled = null;
+    }
+
+    public boolean isEmpty() {
+        return inventory.isEmpty();
+    }
+
+    public boolean contains(Item item) {
+        for (int i = 0; i < SIZE; ++i) {
+            if (inventory.getItem(i).getItem() == item) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Safe to call from any thread
+     */
+    public boolean matches(ItemStack stack) {
+        Compiled compiled = this.compiled;
+        if (compiled == null) return false;
+
+        int id = Item.getId(stack.getItem());
+        if (compiled.items.get(id)) return true;
+        if (!compiled.nbtItems.get(id) || !stack.hasTag()) return false;
+        if (!compiled.nbtKeys.contains(nbtKey(id, stack.getTag().hashCode()))) return false;
+
+        // Guard against hash collisions, this is only reached when the hash already matched
+        for (ItemStack ghost : compiled.nbtGhosts) {
+            if (ghost.getItem() == stack.getItem() && ItemStack.tagMatches(ghost, stack)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether a stack of the item without NBT matches; safe to call from any thread
+     */
+    public boolean matches(Item item) {
+        Compiled compiled = this.compiled;
+        return compiled != null && compiled.items.get(Item.getId(item));
+    }
+
+    private Compiled build() {
+        Compiled compiled = new Compiled();
+        List<ItemStack> nbtGhosts = new ArrayList<>();
+        for (int i = 0; i < SIZE; ++i) {
+            ItemStack ghost = inventory.getItem(i);
+            if (ghost.isEmpty()) continue;
+
+            Item item = ghost.getItem();
+            int id = Item.getId(item);
+            if (matchNbt && ghost.hasTag()) {
+                compiled.nbtItems.set(id);
+                compiled.nbtKeys.add(nbtKey(id, ghost.getTag().hashCode()));
+                nbtGhosts.add(ghost.copy());
+            } else {
+                compiled.items.set(id);
+            }
+
+            if ((tagSlots & (1 << i)) == 0) continue;
+            for (ResourceLocation tagName : item.getTags()) {
+                ITag<Item> tag = ItemTags.getAllTags().getTag(tagName);
+                if (tag == null) continue;
+                for (Item member : tag.getValues()) {
+                    if (member != item) compiled.items.set(Item.getId(member));
+                }
+            }
+        }
+        compiled.nbtGhosts = nbtGhosts.toArray(new ItemStack[0]);
+        return compiled;
+    }
+
+    private static long nbtKey(int itemId, int nbtHash) {
+        return ((long) itemId << 32) | (nbtHash & 0xFFFFFFFFL);
+    }
+
+    public void save(CompoundNBT nbt) {
+        ListNBT list = new ListNBT();
+        for (int i = 0; i < SIZE; ++i) {
+            ItemStack ghost = inventory.getItem(i);
+            if (ghost.isEmpty()) continue;
+            CompoundNBT entry = new CompoundNBT();
+            entry.putByte("Slot", (byte) i);
+            ghost.save(entry);
+            list.add(entry);
+        }
+        nbt.put("Filter", list);
+    }
+
+    public void load(CompoundNBT nbt) {
+        inventory.clearContent();
+        ListNBT list = nbt.getList("Filter", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < list.size(); ++i) {
+            CompoundNBT entry = list.getCompound(i);
+            int slot = entry.getByte("Slot") & 255;
+            if (slot < SIZE) inventory.setItem(slot, ItemStack.of(entry));
+        }
+    }
+
+    private static class Compiled {
+        private final BitSet items = new BitSet();
+        private final BitSet nbtItems = new BitSet();
+        private final LongOpenHashSet nbtKeys = new LongOpenHashSet();
+        // copies, so matching never reads the live ghost items
+        private ItemStack[] nbtGhosts;
+    }
+}
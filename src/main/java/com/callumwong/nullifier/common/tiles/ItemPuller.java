@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.common.tiles;
+
+import com.callumwong.nullifier.core.config.NullifierConfig;
+import com.callumwong.nullifier.core.metrics.VoidSource;
+import net.minecraft.item.ItemStack;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.items.CapabilityItemHandler;
+import net.minecraftforge.items.IItemHandler;
+
+import java.util.BitSet;
+
+/**
+ * Extracts whole stacks from the inventories next to a pull-mode nullifier. From the overflow target it only takes what
+ *   is above the overflow threshold.
+ * For each face it remembers which slots held something after the last operation, so an operation only visits those;
+ *   the full slot scan is repeated only when the neighbour changed or when nothing is left to pull and pullRescanTicks
+ *   have passed.
+ * Driven by NullifierScheduler. Server thread only.
+ */
+public class ItemPuller {
+    private static final int MAX_STACK_SIZE = 64;
+
+    private final NullifierTileEntity tileEntity;
+    private final Source[] sources = new Source[Direction.values().length];
+
+    public ItemPuller(NullifierTileEntity tileEntity) {
+        this.tileEntity = tileEntity;
+        for (Direction face : Direction.values()) {
+            sources[face.get3DDataValue()] = new Source(face);
+        }
+    }
+
+    public void invalidate(Direction face) {
+        sources[face.get3DDataValue()].dirty = true;
+    }
+
+    public void invalidateAll() {
+        for (Source source : sources) {
+            source.handler = null;
+            source.dirty = true;
+        }
+    }
+
+    /**
+     * Runs one pull operation, voiding up to pullStacksPerOperation stacks from the enabled faces
+     * @return whether anything was pulled
+     */
+    public boolean pull(World world, BlockPos pos, NullifierSettings settings) {
+        long gameTime = world.getGameTime();
+        int stacksLeft = NullifierConfig.pullStacksPerOperation;
+        for (Source source : sources) {
+            if (stacksLeft <= 0) break;
+            if (!settings.isPullFace(source.face)) continue;
+            stacksLeft -= source.pull(world, pos, gameTime, stacksLeft);
+        }
+        return stacksLeft < NullifierConfig.pullStacksPerOperation;
+    }
+
+    private class Source {
+        private final Direction face;
+        private final BitSet occupied = new BitSet();
+        private LazyOptional<IItemHandler> handler;
+        // the capability the invalidation listener is already registered on
+        private LazyOptional<IItemHandler> listenedHandler;
+        private boolean dirty = true;
+        private long lastScan = Long.MIN_VALUE;
+
+        private Source(Direction face) {
+            this.face = face;
+        }
+
+        /**
+         * @return the number of stacks pulled
+         */
+        private int pull(World world, BlockPos pos, long gameTime, int maxStacks) {
+            IItemHandler itemHandler = resolve(world, pos);
+            if (itemHandler == null) return 0;
+
+            if (dirty || (occupied.isEmpty() && gameTime - lastScan >= NullifierConfig.pullRescanTicks)) {
+                scan(itemHandler, gameTime);
+            }
+
+            int pulled = 0;
+            int slots = itemHandler.getSlots();
+            for (int slot = occupied.nextSetBit(0); slot >= 0 && pulled < maxStacks; slot = occupied.nextSetBit(slot + 1)) {
+                if (slot >= slots) {
+                    occupied.clear(slot, occupied.length());
+                    break;
+                }
+
+                ItemStack available = itemHandler.extractItem(slot, MAX_STACK_SIZE, true);
+                if (available.isEmpty()) {
+                    occupied.clear(slot);
+                    continue;
+                }
+                if (!tileEntity.canVoid(available)) continue;
+                int limit = tileEntity.getPullLimit(face, available);
+                if (limit <= 0) continue;
+
+                ItemStack extracted = itemHandler.extractItem(slot, limit, false);
+                if (extracted.isEmpty()) continue;
+                tileEntity.onItemVoided(extracted, VoidSource.PULL);
+                tileEntity.onPulled(face, extracted);
+                ++pulled;
+                if (itemHandler.getStackInSlot(slot).isEmpty()) occupied.clear(slot);
+            }
+            return pulled;
+        }
+
+        private void scan(IItemHandler itemHandler, long gameTime) {
+            dirty = false;
+            lastScan = gameTime;
+            occupied.clear();
+            int slots = itemHandler.getSlots();
+            for (int slot = 0; slot < slots; ++slot) {
+                if (!itemHandler.getStackInSlot(slot).isEmpty()) occupied.set(slot);
+            }
+        }
+
+        private IItemHandler resolve(World world, BlockPos pos) {
+            if (handler == null) {
+                handler = LazyOptional.empty();
+                BlockPos sourcePos = pos.relative(face);
+                if (world.isLoaded(sourcePos)) {
+                    TileEntity neighbour = world.getBlockEntity(sourcePos);
+                    if (neighbour != null && !(neighbour instanceof NullifierTileEntity)) {
+                        LazyOptional<IItemHandler> capability = neighbour.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, face.getOpposite());
+                        if (capability.isPresent()) {
+                            if (capability != listenedHandler) {
+                                capability.addListener(invalidated -> {
+                                    handler = null;
+                                    dirty = true;
+                                });
+                                listenedHandler = capability;
+                            }
+                            handler = capability;
+                        }
+                    }
+                }
+                dirty = true;
+            }
+            return handler.orElse(null);
+        }
+    }
+}
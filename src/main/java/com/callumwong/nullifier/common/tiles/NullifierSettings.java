@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.common.tiles;
+
+import com.callumwong.nullifier.core.interfaces.Notify;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.Direction;
+import net.minecraft.util.IIntArray;
+
+/**
+ * The per-nullifier modes which a player can change from the GUI.
+ * Implements IIntArray so the Container can keep the client copy in sync through the vanilla data slots, the same way
+ *   the furnace syncs its burn time. Note that data slots are sent as shorts, so every value must fit in 16 bits.
+ * Changes requested from the client arrive through Container.clickMenuButton and are routed to handleButton.
+ */
+public class NullifierSettings implements IIntArray {
+    public static final int FLAG_VACUUM = 1;
+    public static final int FLAG_FILTER = 1 << 1;
+    public static final int FLAG_FILTER_TAGS = 1 << 2;
+    public static final int FLAG_FILTER_NBT = 1 << 3;
+    public static final int FLAG_OVERFLOW = 1 << 4;
+    public static final int FLAG_PULL = 1 << 5;
+    public static final int FLAG_CLAIM = 1 << 6;
+    public static final int FLAG_ABSORB = 1 << 7;
+    public static final int FLAG_DRAIN = 1 << 8;
+
+    public static final int BUTTON_TOGGLE_VACUUM = 0;
+    public static final int BUTTON_TOGGLE_FILTER = 1;
+    public static final int BUTTON_TOGGLE_FILTER_TAGS = 2;
+    public static final int BUTTON_TOGGLE_FILTER_NBT = 3;
+    public static final int BUTTON_TOGGLE_OVERFLOW = 4;
+    public static final int BUTTON_CYCLE_OVERFLOW_FACE = 5;
+    public static final int BUTTON_CYCLE_OVERFLOW_THRESHOLD = 6;
+    public static final int BUTTON_TOGGLE_PULL = 7;
+    public static final int BUTTON_TOGGLE_PULL_FACE = 8; // + Direction.get3DDataValue()
+    public static final int BUTTON_TOGGLE_CLAIM = 14;
+    public static final int BUTTON_CYCLE_FACE_MODE = 15; // + Direction.get3DDataValue()
+    public static final int BUTTON_TOGGLE_ABSORB = 21;
+    public static final int BUTTON_TOGGLE_DRAIN = 26; // 22-25 are taken by ExperienceBank and RecoveryBuffer
+
+    /**
+     * What each side of the nullifier accepts from pipes and hoppers
+     */
+    public static final int FACE_BOTH = 0;
+    public static final int FACE_ITEMS = 1;
+    public static final int FACE_FLUIDS = 2;
+    public static final int FACE_FILTERED = 3;
+    public static final int FACE_DISABLED = 4;
+    public static final int FACE_MODE_COUNT = 5;
+
+    public static final int[] OVERFLOW_THRESHOLDS = {64, 256, 1000, 2000, 5000, 10000, 20000, 50000, 100000};
+
+    private static final int INDEX_FLAGS = 0;
+    private static final int INDEX_OVERFLOW_FACE = 1;
+    private static final int INDEX_OVERFLOW_THRESHOLD = 2;
+    private static final int INDEX_PULL_FACES = 3;
+    private static final int INDEX_FACE_MODES_LOW = 4;
+    private static final int INDEX_FACE_MODES_HIGH = 5;
+    private static final int INDEX_TAG_SLOTS = 6;
+    private static final int DATA_COUNT = 7;
+
+    private static final int ALL_FACES = (1 << 6) - 1;
+    private static final int ALL_FILTER_SLOTS = (1 << ItemFilter.SIZE) - 1;
+    // the face modes take 3 bits per face, so they are split over two data slots of 3 faces each
+    private static final int FACE_MODE_BITS = 3;
+    private static final int FACE_MODE_MASK = (1 << FACE_MODE_BITS) - 1;
+    private static final int FACE_MODES_HALF_BITS = FACE_MODE_BITS * 3;
+    private static final int FACE_MODES_HALF_MASK = (1 << FACE_MODES_HALF_BITS) - 1;
+
+    private int flags;
+    // a horizontal neighbour, since those report their content changes and so never need a resync per tick
+    private int overflowFace = Direction.NORTH.get3DDataValue();
+    private int overflowThresholdIndex = 5;
+    private int pullFaces = 1 << Direction.UP.get3DDataValue();
+    private int faceModes;
+    private int tagSlots;
+    private Notify changeNotificationLambda = () -> {};
+
+    public void setChangeNotificationLambda(Notify changeNotificationLambda) {
+        this.changeNotificationLambda = changeNotificationLambda;
+    }
+
+    public boolean isEnabled(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    public void toggle(int flag) {
+        flags ^= flag;
+        changeNotificationLambda.invoke();
+    }
+
+    /**
+     * The side of the nullifier the overflow target inventory is on
+     */
+    public Direction getOverflowFace() {
+        return Direction.from3DDataValue(overflowFace);
+    }
+
+    /**
+     * Items are only voided while the target holds more than this many of them
+     */
+    public int getOverflowThreshold() {
+        return OVERFLOW_THRESHOLDS[overflowThresholdIndex];
+    }
+
+    /**
+     * Whether the pull mode extracts from the inventory on the given face
+     */
+    public boolean isPullFace(Direction face) {
+        return (pullFaces & (1 << face.get3DDataValue())) != 0;
+    }
+
+    public boolean hasPullFaces() {
+        return pullFaces != 0;
+    }
+
+    /**
+     * Whether the ghost item in the given filter slot also matches the items sharing one of its tags (while
+     *   FLAG_FILTER_TAGS is on); off by default, since broad tags would match whole families of items
+     */
+    public boolean isTagSlot(int slot) {
+        return (tagSlots & (1 << slot)) != 0;
+    }
+
+    /**
+     * @return a bit for every filter slot which matches by tag
+     */
+    public int getTagSlots() {
+        return tagSlots;
+    }
+
+    public void toggleTagSlot(int slot) {
+        if (slot < 0 || slot >= ItemFilter.SIZE) return;
+        tagSlots ^= 1 << slot;
+        changeNotificationLambda.invoke();
+    }
+
+    /**
+     * @return one of the FACE_ constants
+     */
+    public int getFaceMode(Direction face) {
+        return (faceModes >> (face.get3DDataValue() * FACE_MODE_BITS)) & FACE_MODE_MASK;
+    }
+
+    /**
+     * Resets every face mode that isn't a known one, so that bad data from NBT or the network can't reach the capabilities
+     */
+    private static int sanitiseFaceModes(int faceModes) {
+        int result = 0;
+        for (int face = 0; face < Direction.values().length; ++face) {
+            int mode = (faceModes >> (face * FACE_MODE_BITS)) & FACE_MODE_MASK;
+            if (mode < FACE_MODE_COUNT) result |= mode << (face * FACE_MODE_BITS);
+        }
+        return result;
+    }
+
+    /**
+     * @return whether the button id was recognised
+     */
+    public boolean handleButton(int buttonId) {
+        if (buttonId >= BUTTON_TOGGLE_PULL_FACE && buttonId < BUTTON_TOGGLE_PULL_FACE + Direction.values().length) {
+            pullFaces ^= 1 << (buttonId - BUTTON_TOGGLE_PULL_FACE);
+            changeNotificationLambda.invoke();
+            return true;
+        }
+        if (buttonId >= BUTTON_CYCLE_FACE_MODE && buttonId < BUTTON_CYCLE_FACE_MODE + Direction.values().length) {
+            Direction face = Direction.from3DDataValue(buttonId - BUTTON_CYCLE_FACE_MODE);
+            int shift = face.get3DDataValue() * FACE_MODE_BITS;
+            int mode = (getFaceMode(face) + 1) % FACE_MODE_COUNT;
+            faceModes = (faceModes & ~(FACE_MODE_MASK << shift)) | (mode << shift);
+            changeNotificationLambda.invoke();
+            return true;
+        }
+
+        switch (buttonId) {
+            case BUTTON_TOGGLE_VACUUM:
+                toggle(FLAG_VACUUM);
+                return true;
+            case BUTTON_TOGGLE_FILTER:
+                toggle(FLAG_FILTER);
+                return true;
+            case BUTTON_TOGGLE_FILTER_TAGS:
+                toggle(FLAG_FILTER_TAGS);
+                return true;
+            case BUTTON_TOGGLE_FILTER_NBT:
+                toggle(FLAG_FILTER_NBT);
+                return true;
+            case BUTTON_TOGGLE_OVERFLOW:
+                toggle(FLAG_OVERFLOW);
+                return true;
+            case BUTTON_CYCLE_OVERFLOW_FACE:
+                overflowFace = (overflowFace + 1) % Direction.values().length;
+                changeNotificationLambda.invoke();
+                return true;
+            case BUTTON_CYCLE_OVERFLOW_THRESHOLD:
+                overflowThresholdIndex = (overflowThresholdIndex + 1) % OVERFLOW_THRESHOLDS.length;
+                changeNotificationLambda.invoke();
+                return true;
+            case BUTTON_TOGGLE_PULL:
+                toggle(FLAG_PULL);
+                return true;
+            case BUTTON_TOGGLE_CLAIM:
+                toggle(FLAG_CLAIM);
+                return true;
+            case BUTTON_TOGGLE_ABSORB:
+                toggle(FLAG_ABSORB);
+                return true;
+            case BUTTON_TOGGLE_DRAIN:
+                toggle(FLAG_DRAIN);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public void save(CompoundNBT nbt) {
+        nbt.putInt("Flags", flags);
+        nbt.putByte("OverflowFace", (byte) overflowFace);
+        nbt.putByte("OverflowThreshold", (byte) overflowThresholdIndex);
+        nbt.putByte("PullFaces", (byte) pullFaces);
+        nbt.putInt("FaceModes", faceModes);
+        nbt.putShort("TagSlots", (short) tagSlots);
+    }
+
+    public void load(CompoundNBT nbt) {
+        flags = nbt.getInt("Flags");
+        if (nbt.contains("OverflowFace")) overflowFace = clamp(nbt.getByte("OverflowFace"), Direction.values().length);
+        if (nbt.contains("OverflowThreshold")) overflowThresholdIndex = clamp(nbt.getByte("OverflowThreshold"), OVERFLOW_THRESHOLDS.length);
+        if (nbt.contains("PullFaces")) pullFaces = nbt.getByte("PullFaces") & ALL_FACES;
+        faceModes = sanitiseFaceModes(nbt.getInt("FaceModes"));
+        tagSlots = nbt.getShort("TagSlots") & ALL_FILTER_SLOTS;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    @Override
+    public int get(int index) {
+        switch (index) {
+            case INDEX_FLAGS:
+                return flags;
+            case INDEX_OVERFLOW_FACE:
+                return overflowFace;
+            case INDEX_OVERFLOW_THRESHOLD:
+                return overflowThresholdIndex;
+            case INDEX_PULL_FACES:
+                return pullFaces;
+            case INDEX_FACE_MODES_LOW:
+                return faceModes & FACE_MODES_HALF_MASK;
+            case INDEX_FACE_MODES_HIGH:
+                return faceModes >> FACE_MODES_HALF_BITS;
+            case INDEX_TAG_SLOTS:
+                return tagSlots;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void set(int index, int value) {
+        switch (index) {
+            case INDEX_FLAGS:
+                flags = value;
+                break;
+            case INDEX_OVERFLOW_FACE:
+                overflowFace = clamp(value, Direction.values().length);
+                break;
+            case INDEX_OVERFLOW_THRESHOLD:
+                overflowThresholdIndex = clamp(value, OVERFLOW_THRESHOLDS.length);
+                break;
+            case INDEX_PULL_FACES:
+                pullFaces = value & ALL_FACES;
+                break;
+            case INDEX_FACE_MODES_LOW:
+                faceModes = sanitiseFaceModes((faceModes & ~FACE_MODES_HALF_MASK) | (value & FACE_MODES_HALF_MASK));
+                break;
+            case INDEX_FACE_MODES_HIGH:
+                faceModes = sanitiseFaceModes((faceModes & FACE_MODES_HALF_MASK) | ((value & FACE_MODES_HALF_MASK) << FACE_MODES_HALF_BITS));
+                break;
+            case INDEX_TAG_SLOTS:
+                tagSlots = value & ALL_FILTER_SLOTS;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return DATA_COUNT;
+    }
+}
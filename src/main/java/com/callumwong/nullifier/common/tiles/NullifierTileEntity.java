@@ -12,40 +12,111 @@
 
 package com.callumwong.nullifier.common.tiles;
 
+import com.callumwong.nullifier.common.capabilities.VoidFluidHandler;
+import com.callumwong.nullifier.common.capabilities.VoidItemHandler;
+import com.callumwong.nullifier.common.capabilities.VoidSink;
 import com.callumwong.nullifier.common.containers.NullifierContainer;
 import com.callumwong.nullifier.common.containers.NullifierContents;
+import com.callumwong.nullifier.core.config.NullifierConfig;
 import com.callumwong.nullifier.core.event.EventHandler;
+import com.callumwong.nullifier.core.ledger.VoidLedgers;
+import com.callumwong.nullifier.core.metrics.NullifierMetrics;
+import com.callumwong.nullifier.core.metrics.VoidSource;
+import com.callumwong.nullifier.core.network.NullifierNetwork;
+import com.callumwong.nullifier.core.network.StatisticsDeltaPacket;
+import com.callumwong.nullifier.core.network.VoidEffectPacket;
+import com.callumwong.nullifier.core.scheduling.EffectQueue;
+import com.callumwong.nullifier.core.scheduling.NotificationQueue;
+import com.callumwong.nullifier.core.scheduling.NullifierScheduler;
+import com.callumwong.nullifier.core.scheduling.OffThreadVoidQueue;
+import com.callumwong.nullifier.core.scheduling.ViewerSyncQueue;
+import com.callumwong.nullifier.core.vacuum.ChunkClaimIndex;
+import com.callumwong.nullifier.core.vacuum.VacuumIndex;
+import io.netty.buffer.Unpooled;
 import net.minecraft.block.BlockState;
+import net.minecraft.entity.item.ExperienceOrbEntity;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.entity.projectile.AbstractArrowEntity;
+import net.minecraft.fluid.Fluid;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.inventory.container.Container;
 import net.minecraft.inventory.container.INamedContainerProvider;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.network.NetworkManager;
+import net.minecraft.network.PacketBuffer;
 import net.minecraft.network.play.server.SUpdateTileEntityPacket;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.util.LazyOptional;
-import net.minecraftforge.items.CapabilityItemHandler;
-import net.minecraftforge.items.IItemHandlerModifiable;
-import net.minecraftforge.items.wrapper.InvWrapper;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fml.network.PacketDistributor;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class NullifierTileEntity extends TileEntity implements INamedContainerProvider {
     public static final int NUMBER_OF_SLOTS = 9;
 
     private final NullifierContents nullifierContents;
-    private LazyOptional<IItemHandlerModifiable> inventoryHandlerLazyOptional;
+    private final NullifierSettings settings = new NullifierSettings();
+    private final VoidStatistics statistics = new VoidStatistics();
+    private final ItemFilter filter = new ItemFilter();
+    private final OverflowTracker overflowTracker = new OverflowTracker();
+    private final ExperienceBank experienceBank = new ExperienceBank();
+    private final RecoveryBuffer recoveryBuffer = new RecoveryBuffer();
+    private final FluidDrainer fluidDrainer = new FluidDrainer(this);
+    private final ItemPuller itemPuller = new ItemPuller(this);
+    private final FaceCapabilities faceCapabilities = new FaceCapabilities(new VoidItemHandler(this), new VoidItemHandler(this, true),
+            new VoidFluidHandler(this), new VoidSink(this));
+    private final ConcurrentVoidBuffer offThreadVoids = new ConcurrentVoidBuffer();
+
+    private boolean notificationQueued;
+    private boolean neighbourUpdatePending;
+    private boolean saveRequired;
+
+    private final List<ServerPlayerEntity> viewers = new ArrayList<>();
+    private boolean viewerSyncQueued;
+    private long lastViewerSync = Long.MIN_VALUE;
+
+    private long effectItems;
+    private boolean effectQueued;
+    private long lastEffect = Long.MIN_VALUE;
+
+    private NullifierMetrics.Counters metrics;
+    private VacuumIndex.Vacuum vacuum;
+    private ChunkClaimIndex.Claim claim;
+    private NullifierScheduler.Task pullTask;
+    private NullifierScheduler.Task drainTask;
 
     public NullifierTileEntity() {
         super(EventHandler.nullifierTileEntityType);
-        nullifierContents = NullifierContents.createForTileEntity(NUMBER_OF_SLOTS, this::canPlayerAccessInventory, this::setChanged);
+        nullifierContents = NullifierContents.createForTileEntity(NUMBER_OF_SLOTS, this::canPlayerAccessInventory, this::onContentsChanged);
+        nullifierContents.setVoidNotificationLambda(stack -> onItemVoided(stack, VoidSource.PLAYER));
+        nullifierContents.setOpenInventoryNotificationLambda(this::onViewerAdded);
+        nullifierContents.setCloseInventoryNotificationLambda(this::onViewerRemoved);
+        settings.setChangeNotificationLambda(this::onSettingsChanged);
+        filter.getInventory().addListener(inventory -> onFilterChanged());
+        experienceBank.setChangeNotificationLambda(this::markPersistentStateChanged);
+        faceCapabilities.update(settings);
+    }
 
-        this.inventoryHandlerLazyOptional = LazyOptional.of(() -> new InvWrapper(nullifierContents));
+    public NullifierSettings getSettings() {
+        return settings;
+    }
+
+    public VoidStatistics getStatistics() {
+        return statistics;
     }
 
     public boolean canPlayerAccessInventory(PlayerEntity player) {
@@ -57,42 +128,494 @@ public class NullifierTileEntity extends TileEntity implements INamedContainerPr
         return player.distanceToSqr(worldPosition.getX() + X_CENTRE_OFFSET, worldPosition.getY() + Y_CENTRE_OFFSET, worldPosition.getZ() + Z_CENTRE_OFFSET) < MAXIMUM_DISTANCE_SQ;
     }
 
+    /**
+     * Whether this nullifier currently accepts the stack; the hot path for every insert, constant time.
+     * Safe to call from any thread, but the overflow target can only be read on the server thread, so other threads are
+     *   refused while overflow mode is on.
+     */
+    public boolean canVoid(ItemStack stack) {
+        return canVoid(stack, false);
+    }
+
+    /**
+     * @param forceFilter whether to apply the filter even while filter mode is off, for sides set to filtered
+     */
+    public boolean canVoid(ItemStack stack, boolean forceFilter) {
+        if ((forceFilter || settings.isEnabled(NullifierSettings.FLAG_FILTER))
+                && !filter.matches(stack))
+            return false;
+        return isAboveOverflowThreshold(stack.getItem());
+    }
+
+    /**
+     * canVoid for a stack of the item without NBT, as bulk callers hand it over; allocates nothing
+     */
+    public boolean canVoid(Item item) {
+        if (settings.isEnabled(NullifierSettings.FLAG_FILTER) && !filter.matches(item)) return false;
+        return isAboveOverflowThreshold(item);
+    }
+
+    private boolean isAboveOverflowThreshold(Item item) {
+        if (!settings.isEnabled(NullifierSettings.FLAG_OVERFLOW) || level == null) return true;
+        if (!isOnServerThread()) return false;
+        return overflowTracker.getCount(level, worldPosition, settings.getOverflowFace(), item) > settings.getOverflowThreshold();
+    }
+
+    /**
+     * Logistics mods may call the capabilities from their own worker threads; anything else runs on the server thread
+     *   (or on the client, which never voids anything)
+     */
+    private boolean isOnServerThread() {
+        return !(level instanceof ServerWorld) || ((ServerWorld) level).getServer().isSameThread();
+    }
+
+    /**
+     * Whether canVoid currently accepts everything, letting batch callers skip it
+     */
+    public boolean acceptsAll() {
+        return !settings.isEnabled(NullifierSettings.FLAG_FILTER) && !settings.isEnabled(NullifierSettings.FLAG_OVERFLOW);
+    }
+
+    /**
+     * Called by NullifierBlock when a neighbouring block or its contents changed
+     */
+    public void onNeighbourChanged(BlockPos neighbourPos) {
+        Direction face = Direction.fromNormal(neighbourPos.getX() - worldPosition.getX(), neighbourPos.getY() - worldPosition.getY(), neighbourPos.getZ() - worldPosition.getZ());
+        if (face == null) return;
+        if (face == settings.getOverflowFace()) overflowTracker.invalidate();
+        itemPuller.invalidate(face);
+        if (pullTask != null) pullTask.wake();
+        // fluid flowing in from the side; the drain's own changes don't notify anything
+        if (drainTask != null) drainTask.wake();
+    }
+
+    /**
+     * Run by NullifierScheduler every pullIntervalTicks, or less often while there is nothing to pull
+     * @return whether anything was pulled
+     */
+    private boolean pull() {
+        if (level == null || isRemoved()) return false;
+        return itemPuller.pull(level, worldPosition, settings);
+    }
+
+    /**
+     * Run by NullifierScheduler every drainIntervalTicks, or less often while there is nothing to drain
+     * @return whether any fluid was removed
+     */
+    private boolean drain() {
+        if (level == null || isRemoved()) return false;
+        return fluidDrainer.drain(level, worldPosition);
+    }
+
+    /**
+     * How much of the stack in a slot on the given face may be pulled; from the overflow target only the part above the
+     *   threshold, so a single operation can't take it below
+     */
+    int getPullLimit(Direction face, ItemStack available) {
+        if (!settings.isEnabled(NullifierSettings.FLAG_OVERFLOW) || face != settings.getOverflowFace() || level == null)
+            return available.getCount();
+        int surplus = overflowTracker.getCount(level, worldPosition, face, available.getItem()) - settings.getOverflowThreshold();
+        return Math.max(0, Math.min(available.getCount(), surplus));
+    }
+
+    /**
+     * Pulling from the overflow target changes its counts without it necessarily telling us
+     */
+    void onPulled(Direction face, ItemStack extracted) {
+        if (face == settings.getOverflowFace()) overflowTracker.onExtracted(extracted.getItem(), extracted.getCount());
+    }
+
+    /**
+     * Called for every stack voided, whichever way it came in
+     */
+    public void onItemVoided(ItemStack stack, VoidSource source) {
+        onItemsVoided(stack.getItem(), stack.getCount(), stack.getTag(), source);
+    }
+
+    public void onItemsVoided(Item item, long count, VoidSource source) {
+        onItemsVoided(item, count, null, source);
+    }
+
+    /**
+     * @param tag the voided stack's NBT, kept by RecoveryBuffer
+     */
+    public void onItemsVoided(Item item, long count, @Nullable CompoundNBT tag, VoidSource source) {
+        if (!isOnServerThread()) {
+            if (offThreadVoids.addItem(item, count)) OffThreadVoidQueue.enqueue(this);
+            return;
+        }
+        recoveryBuffer.add(item, count, tag);
+        recordItemsVoided(item, count, source);
+    }
+
+    /**
+     * Records voided items everywhere but in RecoveryBuffer; called directly by ConcurrentVoidBuffer, which lost the NBT
+     */
+    void recordItemsVoided(Item item, long count, VoidSource source) {
+        statistics.addItem(item, count);
+        getMetrics().recordVoided(source, count);
+        if (level != null && !level.isClientSide()) VoidLedgers.record(level, worldPosition, item, count, source);
+        markPersistentStateChanged();
+        queueViewerSync();
+        queueVoidEffect(count);
+    }
+
+    private void queueVoidEffect(long count) {
+        if (!NullifierConfig.enableEffects || level == null || level.isClientSide()) return;
+        effectItems += count;
+        if (effectQueued) return;
+        effectQueued = true;
+        EffectQueue.enqueue(this);
+    }
+
+    /**
+     * Called every tick by EffectQueue while queued; sends one effect for everything voided since the last one
+     * @return whether this nullifier is done, false to stay queued because the last effect was less than intervalTicks ago
+     */
+    public boolean trySendVoidEffect(int intervalTicks) {
+        if (level == null || isRemoved() || effectItems == 0) {
+            effectQueued = false;
+            effectItems = 0;
+            return true;
+        }
+        long gameTime = level.getGameTime();
+        if (gameTime - lastEffect < intervalTicks) return false;
+        lastEffect = gameTime;
+        effectQueued = false;
+
+        // exactly the players who have this chunk loaded, however far their render distance reaches
+        NullifierNetwork.CHANNEL.send(PacketDistributor.TRACKING_CHUNK.with(() -> level.getChunkAt(worldPosition)),
+                new VoidEffectPacket(worldPosition, VoidEffectPacket.intensityOf(effectItems)));
+        effectItems = 0;
+        return true;
+    }
+
+    /**
+     * The metrics of this nullifier's dimension, looked up once
+     */
+    public NullifierMetrics.Counters getMetrics() {
+        if (metrics == null) metrics = NullifierMetrics.get(level == null ? World.OVERWORLD : level.dimension());
+        return metrics;
+    }
+
+    public void onFluidVoided(FluidStack stack) {
+        onFluidsVoided(stack.getFluid(), stack.getAmount());
+    }
+
+    public void onFluidsVoided(Fluid fluid, long amount) {
+        if (!NullifierConfig.recordFluidStatistics) return;
+        if (!isOnServerThread()) {
+            if (offThreadVoids.addFluid(fluid, amount)) OffThreadVoidQueue.enqueue(this);
+            return;
+        }
+        statistics.addFluid(fluid, amount);
+        markPersistentStateChanged();
+        queueViewerSync();
+    }
+
+    /**
+     * Called by OffThreadVoidQueue on the server thread, records what other threads voided since the last drain
+     */
+    public void drainOffThreadVoids() {
+        if (isRemoved()) return;
+        offThreadVoids.drainTo(this);
+    }
+
+    private void onViewerAdded(PlayerEntity player) {
+        if (!(player instanceof ServerPlayerEntity) || viewers.contains(player)) return;
+        if (viewers.isEmpty()) statistics.setTrackChanges(true);
+        viewers.add((ServerPlayerEntity) player);
+    }
+
+    private void onViewerRemoved(PlayerEntity player) {
+        if (viewers.remove(player) && viewers.isEmpty()) statistics.setTrackChanges(false);
+    }
+
+    private void queueViewerSync() {
+        if (viewerSyncQueued || viewers.isEmpty()) return;
+        viewerSyncQueued = true;
+        ViewerSyncQueue.enqueue(this);
+    }
+
+    /**
+     * Called every tick by ViewerSyncQueue while queued; sends the changed statistics to everyone with the GUI open
+     * @return whether this nullifier is done, false to stay queued because the last update was less than intervalTicks ago
+     */
+    public boolean trySyncViewers(int intervalTicks) {
+        if (level == null || isRemoved() || viewers.isEmpty() || !statistics.hasChanges()) {
+            viewerSyncQueued = false;
+            return true;
+        }
+        long gameTime = level.getGameTime();
+        if (gameTime - lastViewerSync < intervalTicks) return false;
+        lastViewerSync = gameTime;
+        viewerSyncQueued = false;
+
+        PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
+        statistics.writeDelta(buffer);
+        byte[] delta = Arrays.copyOf(buffer.array(), buffer.writerIndex());
+        for (ServerPlayerEntity viewer : viewers) {
+            if (!(viewer.containerMenu instanceof NullifierContainer) || ((NullifierContainer) viewer.containerMenu).getStatistics() != statistics) continue;
+            NullifierNetwork.CHANNEL.send(PacketDistributor.PLAYER.with(() -> viewer), new StatisticsDeltaPacket(viewer.containerMenu.containerId, delta));
+        }
+        return true;
+    }
+
+    /**
+     * Called whenever an item is voided through the GUI.
+     * Voiding doesn't change anything that is saved, so only the neighbour (comparator) update is needed, and with
+     *   deferNotifications enabled it is collapsed into one per tick.
+     */
+    public void onContentsChanged() {
+        if (!NullifierConfig.deferNotifications) {
+            setChanged();
+            return;
+        }
+        neighbourUpdatePending = true;
+        queueNotification();
+    }
+
+    /**
+     * Call this instead of setChanged when something written by save() has changed
+     */
+    public void markPersistentStateChanged() {
+        if (!NullifierConfig.deferNotifications) {
+            setChanged();
+            return;
+        }
+        saveRequired = true;
+        neighbourUpdatePending = true;
+        queueNotification();
+    }
+
+    private void queueNotification() {
+        if (notificationQueued || level == null || level.isClientSide()) return;
+        notificationQueued = true;
+        NotificationQueue.enqueue(this);
+    }
+
+    /**
+     * Called once at the end of the server tick by NotificationQueue; does what setChanged would have done, but only the
+     *   parts that were actually requested during the tick.
+     */
+    public void flushDeferredNotifications() {
+        notificationQueued = false;
+        if (level == null || isRemoved()) {
+            saveRequired = false;
+            neighbourUpdatePending = false;
+            return;
+        }
+
+        if (saveRequired) {
+            saveRequired = false;
+            level.blockEntityChanged(worldPosition, this);
+        }
+        if (neighbourUpdatePending) {
+            neighbourUpdatePending = false;
+            BlockState blockState = level.getBlockState(worldPosition);
+            if (!blockState.isAir(level, worldPosition)) {
+                level.updateNeighbourForOutputSignal(worldPosition, blockState.getBlock());
+            }
+        }
+    }
+
+    private void onSettingsChanged() {
+        compileFilter();
+        overflowTracker.invalidateTarget();
+        itemPuller.invalidateAll();
+        faceCapabilities.update(settings);
+        markPersistentStateChanged();
+        updateRegistrations();
+    }
+
+    private void onFilterChanged() {
+        compileFilter();
+        markPersistentStateChanged();
+        updateRegistrations();
+    }
+
+    /**
+     * Compiled here on the server thread, never by the (possibly off-thread) callers matching against it
+     */
+    private void compileFilter() {
+        if (level == null || level.isClientSide() || isRemoved()) return;
+        filter.compile(settings.isEnabled(NullifierSettings.FLAG_FILTER_TAGS) ? settings.getTagSlots() : 0, settings.isEnabled(NullifierSettings.FLAG_FILTER_NBT));
+    }
+
+    /**
+     * Registers or unregisters this nullifier with the world-wide systems driving its active modes, depending on its
+     *   settings and whether it is still loaded
+     */
+    private void updateRegistrations() {
+        if (level == null || level.isClientSide()) return;
+
+        boolean wantsVacuum = !isRemoved() && NullifierConfig.allowVacuum && settings.isEnabled(NullifierSettings.FLAG_VACUUM);
+        boolean wantsAbsorb = !isRemoved() && NullifierConfig.allowAbsorb && settings.isEnabled(NullifierSettings.FLAG_ABSORB);
+        if (vacuum != null && !vacuum.hasModes(wantsVacuum, wantsAbsorb)) {
+            vacuum.unregister();
+            vacuum = null;
+        }
+        if (vacuum == null && (wantsVacuum || wantsAbsorb)) {
+            vacuum = VacuumIndex.get((ServerWorld) level).register(this, NullifierConfig.vacuumRadius, wantsVacuum, wantsAbsorb);
+        }
+
+        // a claim only ever voids what the filter selects, never everything dropping nearby (death drops, recovered items)
+        boolean wantsClaim = !isRemoved() && NullifierConfig.allowClaims && settings.isEnabled(NullifierSettings.FLAG_CLAIM)
+                && settings.isEnabled(NullifierSettings.FLAG_FILTER) && !filter.isEmpty();
+        if (wantsClaim && claim == null) {
+            claim = ChunkClaimIndex.get((ServerWorld) level).register(this, NullifierConfig.claimRadiusChunks);
+        } else if (!wantsClaim && claim != null) {
+            claim.unregister();
+            claim = null;
+        }
+
+        boolean wantsPull = !isRemoved() && NullifierConfig.allowPull && settings.isEnabled(NullifierSettings.FLAG_PULL) && settings.hasPullFaces();
+        if (wantsPull && pullTask == null) {
+            pullTask = NullifierScheduler.schedule((ServerWorld) level, this::pull, () -> NullifierConfig.pullIntervalTicks);
+        } else if (!wantsPull && pullTask != null) {
+            pullTask.cancel();
+            pullTask = null;
+        } else if (pullTask != null) {
+            pullTask.wake();
+        }
+
+        boolean wantsDrain = !isRemoved() && NullifierConfig.allowDrain && settings.isEnabled(NullifierSettings.FLAG_DRAIN);
+        if (wantsDrain && drainTask == null) {
+            drainTask = NullifierScheduler.schedule((ServerWorld) level, this::drain, () -> NullifierConfig.drainIntervalTicks);
+        } else if (!wantsDrain && drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+            fluidDrainer.reset();
+        }
+    }
+
+    private void clearRegistrations() {
+        metrics = null;
+        filter.release();
+        if (!viewers.isEmpty()) {
+            viewers.clear();
+            statistics.setTrackChanges(false);
+        }
+        if (vacuum != null) {
+            vacuum.unregister();
+            vacuum = null;
+        }
+        if (claim != null) {
+            claim.unregister();
+            claim = null;
+        }
+        if (pullTask != null) {
+            pullTask.cancel();
+            pullTask = null;
+        }
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+            fluidDrainer.reset();
+        }
+    }
+
+    /**
+     * Called by VacuumIndex for every dropped item inside this vacuum's range
+     * @return whether the item was voided
+     */
+    public boolean tryVoidItemEntity(ItemEntity itemEntity) {
+        ItemStack stack = itemEntity.getItem();
+        if (!canVoid(stack)) return false;
+        onItemVoided(stack, VoidSource.VACUUM);
+        itemEntity.remove();
+        return true;
+    }
+
+    /**
+     * Called by VacuumIndex for every experience orb inside this nullifier's range while it is absorbing
+     */
+    public void absorbExperience(ExperienceOrbEntity orb) {
+        if (NullifierConfig.bankExperience) experienceBank.deposit(orb.getValue());
+        orb.remove();
+    }
+
+    /**
+     * Called by VacuumIndex for every arrow or trident inside this nullifier's range while it is absorbing
+     * @return whether it was removed; only projectiles stuck in a block that no player could pick up are, so thrown
+     *   tridents and player arrows are left alone
+     */
+    public boolean tryAbsorbProjectile(AbstractArrowEntity projectile) {
+        if (!projectile.inGround || projectile.pickup == AbstractArrowEntity.PickupStatus.ALLOWED) return false;
+        projectile.remove();
+        return true;
+    }
+
+    /**
+     * Called by ChunkClaimIndex for every dropped item about to spawn in a claimed chunk; only items matching the
+     *   filter are claimed
+     * @return whether the item was voided; the caller then keeps it from spawning
+     */
+    public boolean tryVoidSpawningItem(ItemEntity itemEntity) {
+        ItemStack stack = itemEntity.getItem();
+        if (stack.isEmpty() || !settings.isEnabled(NullifierSettings.FLAG_FILTER) || !canVoid(stack, true)) return false;
+        onItemVoided(stack, VoidSource.CLAIM);
+        return true;
+    }
+
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        faceCapabilities.update(settings);
+        compileFilter();
+        updateRegistrations();
+    }
+
+    @Override
+    public void setRemoved() {
+        super.setRemoved();
+        clearRegistrations();
+    }
+
+    @Override
+    public void onChunkUnloaded() {
+        super.onChunkUnloaded();
+        clearRegistrations();
+    }
+
     @Override
     public CompoundNBT save(CompoundNBT nbt) {
         super.save(nbt);
+        settings.save(nbt);
+        statistics.save(nbt);
+        filter.save(nbt);
+        experienceBank.save(nbt);
+        recoveryBuffer.compact();
         return nbt;
     }
 
     @Override
     public void load(BlockState state, CompoundNBT nbt) {
         super.load(state, nbt);
+        settings.load(nbt);
+        statistics.load(nbt);
+        filter.load(nbt);
+        experienceBank.load(nbt);
+        faceCapabilities.update(settings);
+        compileFilter();
     }
 
+    // Nothing the client renders depends on the TileEntity, so block updates send nothing and the chunk data only
+    //   carries the id and position; the GUI gets its state from the container and StatisticsDeltaPacket instead
+
     @Nullable
     @Override
     public SUpdateTileEntityPacket getUpdatePacket() {
-        CompoundNBT updateTagDescribingTileEntityState = getUpdateTag();
-        final int METADATA = 42;
-        return new SUpdateTileEntityPacket(this.worldPosition, METADATA, updateTagDescribingTileEntityState);
-    }
-
-    @Override
-    public void onDataPacket(NetworkManager net, SUpdateTileEntityPacket pkt) {
-        CompoundNBT updateTagDescribingTileEntityState = pkt.getTag();
-        BlockState blockState = level.getBlockState(worldPosition);
-        handleUpdateTag(blockState, updateTagDescribingTileEntityState);
+        return null;
     }
 
     @Override
     public CompoundNBT getUpdateTag() {
-        CompoundNBT nbtTagCompound = new CompoundNBT();
-        save(nbtTagCompound);
-        return nbtTagCompound;
+        return super.save(new CompoundNBT());
     }
 
     @Override
     public void handleUpdateTag(BlockState blockState, CompoundNBT tag) {
-        load(blockState, tag);
     }
 
     @Override
@@ -106,23 +629,22 @@ public class NullifierTileEntity extends TileEntity implements INamedContainerPr
     @Nullable
     @Override
     public Container createMenu(int windowID, PlayerInventory playerInventory, PlayerEntity playerEntity) {
-        return NullifierContainer.createContainerServerSide(windowID, playerInventory, nullifierContents);
+        return NullifierContainer.createContainerServerSide(windowID, playerInventory, nullifierContents, filter.getInventory(), settings, experienceBank, recoveryBuffer, statistics);
     }
 
-    // Below methods allow hoppers to input items into the inventory
+    // Below methods allow hoppers to input items into the inventory, pipes to pump fluids into it, and logistics mods to
+    //   hand over whole batches through IVoidSink, on the sides whose face mode allows it
+    // They go through VoidItemHandler rather than the NullifierContents used by the GUI, see its javadoc
 
     @Override
-    public <T> LazyOptional<T> getCapability(Capability<T> cap, Direction side) {
-        if (cap == CapabilityItemHandler.ITEM_HANDLER_CAPABILITY) {
-//            if (side == Direction.DOWN) return super.getCapability(cap, side); // Don't allow ejecting items
-            return this.inventoryHandlerLazyOptional.cast();
-        }
-        return super.getCapability(cap, side);
+    public <T> LazyOptional<T> getCapability(Capability<T> cap, @Nullable Direction side) {
+        LazyOptional<T> capability = faceCapabilities.get(cap, side);
+        return capability != null ? capability : super.getCapability(cap, side);
     }
 
     @Override
     public void invalidateCaps() {
         super.invalidateCaps();
-        inventoryHandlerLazyOptional.invalidate();
+        faceCapabilities.clear();
     }
 }
\ No newline at end of file
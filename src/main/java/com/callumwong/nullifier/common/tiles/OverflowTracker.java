@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.common.tiles;
+
+import com.callumwong.nullifier.core.config.NullifierConfig;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntMaps;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.items.CapabilityItemHandler;
+import net.minecraftforge.items.IItemHandler;
+
+import java.util.Arrays;
+
+/**
+ * Keeps count of how much of each item the overflow target (the inventory next to the nullifier) holds.
+ * The counts are cached and only resynchronised when they may have changed: when the neighbour notifies the nullifier
+ *   (horizontal neighbours do so whenever their contents change), when the target is replaced, and otherwise every
+ *   overflowResyncTicks. Targets above or below never notify, so for them the first check of every tick resyncs;
+ *   waiting for overflowResyncTicks would let items be voided while the target is already below the threshold. A resync compares each slot against what it held last time and only applies the difference to
+ *   the counts, and at most one resync happens per tick however many items are offered.
+ * Server thread only.
+ */
+public class OverflowTracker {
+    private static final int NO_ITEM = -1;
+
+    private final Int2IntOpenHashMap counts = new Int2IntOpenHashMap();
+    // extractions already taken off counts; put back before a resync, which sees them in the slots
+    private final Int2IntOpenHashMap extracted = new Int2IntOpenHashMap();
+    private int[] slotItems = new int[0];
+    private int[] slotCounts = new int[0];
+    private LazyOptional<IItemHandler> target;
+    // the capability invalidateTarget is already registered on; re-resolving the same one mustn't add another listener
+    private LazyOptional<IItemHandler> listenedTarget;
+    private boolean dirty = true;
+    private long lastSync = Long.MIN_VALUE;
+
+    /**
+     * The target's contents may have changed
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * The target itself may have changed (different face, block replaced)
+     */
+    public void invalidateTarget() {
+        target = null;
+        dirty = true;
+    }
+
+    /**
+     * The nullifier took items out of the target itself. They are taken off the counts straight away, so further
+     *   checks in the same tick see them gone, and the next resync confirms the change.
+     */
+    public void onExtracted(Item item, int count) {
+        int id = Item.getId(item);
+        counts.addTo(id, -count);
+        extracted.addTo(id, count);
+        dirty = true;
+    }
+
+    /**
+     * @return how many of the item the inventory on the given face of pos holds, or 0 if there is no inventory
+     */
+    public int getCount(World world, BlockPos pos, Direction face, Item item) {
+        long gameTime = world.getGameTime();
+        if (face.getAxis().isVertical() || gameTime - lastSync >= NullifierConfig.overflowResyncTicks) dirty = true;
+        if (dirty && gameTime != lastSync) resync(world, pos, face, gameTime);
+        return counts.get(Item.getId(item));
+    }
+
+    private void resync(World world, BlockPos pos, Direction face, long gameTime) {
+        dirty = false;
+        lastSync = gameTime;
+        if (!extracted.isEmpty()) {
+            for (Int2IntMap.Entry entry : Int2IntMaps.fastIterable(extracted)) {
+                counts.addTo(entry.getIntKey(), entry.getIntValue());
+            }
+            extracted.clear();
+        }
+
+        if (target == null) {
+            target = LazyOptional.empty();
+            BlockPos targetPos = pos.relative(face);
+            if (world.isLoaded(targetPos)) {
+                TileEntity tileEntity = world.getBlockEntity(targetPos);
+                if (tileEntity != null) {
+                    LazyOptional<IItemHandler> capability = tileEntity.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, face.getOpposite());
+                    if (capability.isPresent()) {
+                        if (capability != listenedTarget) {
+                            capability.addListener(invalidated -> invalidateTarget());
+                            listenedTarget = capability;
+                        }
+                        target = capability;
+                    }
+                }
+            }
+        }
+
+        IItemHandler handler = target.orElse(null);
+        if (handler == null) {
+            reset(0);
+            return;
+        }
+
+        int slots = handler.getSlots();
+        if (slots != slotItems.length) reset(slots);
+        for (int slot = 0; slot < slots; ++slot) {
+            ItemStack stack = handler.getStackInSlot(slot);
+            int item = stack.isEmpty() ? NO_ITEM : Item.getId(stack.getItem());
+            int count = stack.getCount();
+            if (item == slotItems[slot] && count == slotCounts[slot]) continue;
+
+            if (slotItems[slot] != NO_ITEM) counts.addTo(slotItems[slot], -slotCounts[slot]);
+            if (item != NO_ITEM) counts.addTo(item, count);
+            slotItems[slot] = item;
+            slotCounts[slot] = item == NO_ITEM ? 0 : count;
+        }
+    }
+
+    private void reset(int slots) {
+        counts.clear();
+        extracted.clear();
+        slotItems = new int[slots];
+        slotCounts = new int[slots];
+        Arrays.fill(slotItems, NO_ITEM);
+    }
+}
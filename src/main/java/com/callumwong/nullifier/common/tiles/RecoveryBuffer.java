@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.common.tiles;
+
+import com.callumwong.nullifier.core.config.NullifierConfig;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The last stacks a nullifier voided, so that an operator can give back what went in by mistake.
+ * A ring of recoveryBufferSize entries: adding is constant time and the memory stays bounded, unlike keeping the stacks
+ *   themselves (see ReadOnlyItemStackHandler). A stack of the same item and NBT as the newest entry only adds to its count.
+ * Each entry keeps its own copy of the NBT, taken once when a different stack arrives, so callers reusing or changing
+ *   their stacks afterwards don't affect it. A new stack's NBT is checked by reference against the caller's tag the
+ *   newest entry last matched, so voiding the same stack over and over never walks or hashes it; any other tag is
+ *   compared in full, which stops at the first difference. Nothing is serialised while adding: the older entries are
+ *   written to compact byte arrays when the nullifier is saved (see compact), and the newest entry always stays unpacked.
+ * Only stacks voided on the server thread are recorded; ConcurrentVoidBuffer keeps just item counts. Not saved, so a
+ *   restart empties it.
+ * Server thread only.
+ */
+public class RecoveryBuffer {
+    // continue after the ExperienceBank button ids
+    public static final int BUTTON_RECOVER = 24;
+    public static final int BUTTON_RECOVER_MORE = 25;
+
+    private static final int MORE_STACKS = 36;
+
+    private Item[] items = new Item[0];
+    private long[] counts = new long[0];
+    private CompoundNBT[] tags = new CompoundNBT[0];
+    // the caller's tag the newest entry was copied from or last matched; only compared by reference, never read. A
+    //   voided stack's tag isn't changed in place before it is voided again, so the same reference means the same NBT
+    @Nullable
+    private CompoundNBT newestSourceTag;
+    private byte[][] packedTags = new byte[0][];
+    private int newest = -1;
+    private int size;
+
+    public void add(Item item, long count, @Nullable CompoundNBT tag) {
+        int capacity = NullifierConfig.recoveryBufferSize;
+        if (capacity != items.length) resize(capacity);
+        if (capacity == 0 || count <= 0) return;
+
+        if (size > 0 && items[newest] == item && isNewestTag(tag)) {
+            counts[newest] += count;
+            return;
+        }
+
+        newest = (newest + 1) % capacity;
+        items[newest] = item;
+        counts[newest] = count;
+        tags[newest] = tag == null ? null : tag.copy();
+        newestSourceTag = tag;
+        packedTags[newest] = null;
+        if (size < capacity) ++size;
+    }
+
+    private boolean isNewestTag(@Nullable CompoundNBT tag) {
+        if (tag == null) return tags[newest] == null;
+        if (tag == newestSourceTag) return true;
+        if (!tag.equals(tags[newest])) return false;
+        newestSourceTag = tag;
+        return true;
+    }
+
+    /**
+     * Writes the NBT of every entry but the newest to a compact byte array; called when the nullifier is saved, off the
+     *   insert path
+     */
+    public void compact() {
+        for (int i = 0; i < tags.length; ++i) {
+            if (i == newest || tags[i] == null) continue;
+            packedTags[i] = write(tags[i]);
+            tags[i] = null;
+        }
+    }
+
+    /**
+     * Drops everything; only happens when recoveryBufferSize was changed
+     */
+    private void resize(int capacity) {
+        items = new Item[capacity];
+        counts = new long[capacity];
+        tags = new CompoundNBT[capacity];
+        newestSourceTag = null;
+        packedTags = new byte[capacity][];
+        newest = -1;
+        size = 0;
+    }
+
+    /**
+     * Gives the newest entry back to the player, one stack or up to MORE_STACKS, dropping what doesn't fit
+     * @return whether the button id was recognised
+     */
+    public boolean handleButton(PlayerEntity player, int buttonId) {
+        int maxStacks;
+        switch (buttonId) {
+            case BUTTON_RECOVER:
+                maxStacks = 1;
+                break;
+            case BUTTON_RECOVER_MORE:
+                maxStacks = MORE_STACKS;
+                break;
+            default:
+                return false;
+        }
+        if (!player.hasPermissions(NullifierConfig.recoveryPermissionLevel)) {
+            player.displayClientMessage(new TranslationTextComponent("gui.nullifier.recovery.denied"), false);
+            return true;
+        }
+        if (size == 0) {
+            player.displayClientMessage(new TranslationTextComponent("gui.nullifier.recovery.empty"), false);
+            return true;
+        }
+
+        ItemStack template = new ItemStack(items[newest]);
+        if (tags[newest] != null) template.setTag(tags[newest].copy());
+        int maxStackSize = Math.max(1, template.getMaxStackSize());
+
+        long recovered = 0;
+        for (int i = 0; i < maxStacks && counts[newest] > 0; ++i) {
+            int count = (int) Math.min(maxStackSize, counts[newest]);
+            counts[newest] -= count;
+            recovered += count;
+            ItemHandlerHelper.giveItemToPlayer(player, ItemHandlerHelper.copyStackWithSize(template, count));
+        }
+        player.displayClientMessage(new TranslationTextComponent("gui.nullifier.recovery.recovered", recovered, template.getHoverName()), false);
+        if (counts[newest] == 0) removeNewest();
+        return true;
+    }
+
+    private void removeNewest() {
+        items[newest] = null;
+        tags[newest] = null;
+        packedTags[newest] = null;
+        newestSourceTag = null;
+        newest = (newest - 1 + items.length) % items.length;
+        --size;
+        // the newest entry is compared against on every add, so it is kept unpacked
+        if (size > 0 && packedTags[newest] != null) {
+            tags[newest] = read(packedTags[newest]);
+            packedTags[newest] = null;
+        }
+    }
+
+    private static byte[] write(CompoundNBT tag) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            CompressedStreamTools.write(tag, new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException("Writing to memory failed", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Nullable
+    private static CompoundNBT read(@Nullable byte[] bytes) {
+        if (bytes == null) return null;
+        try {
+            return CompressedStreamTools.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Reading from memory failed", e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.common.tiles;
+
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.fluid.Fluids;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.StringNBT;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Registry;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How much of each item (and fluid) a nullifier has voided.
+ * Counts are kept in a primitive int -> long map keyed by the item's registry id, so counting a voided stack never
+ *   allocates (apart from the occasional rehash when a new item shows up). Fluids share the map, keyed by their fluid
+ *   registry id mapped onto the negative numbers. Only items contribute to the total, since millibuckets and items
+ *   can't be added up.
+ * On disk the ids are replaced by registry names, since raw ids are not guaranteed to be the same in another world;
+ *   the counts are still written as a single long array.
+ * While someone has the GUI open, the keys changed since the last update are tracked so that only those are sent.
+ */
+public class VoidStatistics {
+    // at most 15 bytes each, well below the 32600 bytes NetworkHooks.openGui allows
+    private static final int SNAPSHOT_ENTRIES = 512;
+
+    private final Int2LongOpenHashMap counts = new Int2LongOpenHashMap();
+    private final IntOpenHashSet changedKeys = new IntOpenHashSet();
+    private boolean trackChanges;
+    private long total;
+    private int version;
+
+    private static int fluidKey(int fluidId) {
+        return -1 - fluidId;
+    }
+
+    public void addItem(Item item, long count) {
+        int key = Item.getId(item);
+        counts.addTo(key, count);
+        total += count;
+        ++version;
+        if (trackChanges) changedKeys.add(key);
+    }
+
+    public void addFluid(Fluid fluid, long amount) {
+        int key = fluidKey(Registry.FLUID.getId(fluid));
+        counts.addTo(key, amount);
+        ++version;
+        if (trackChanges) changedKeys.add(key);
+    }
+
+    public void setTrackChanges(boolean trackChanges) {
+        this.trackChanges = trackChanges;
+        changedKeys.clear();
+    }
+
+    public boolean hasChanges() {
+        return !changedKeys.isEmpty();
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getCount(Item item) {
+        return counts.get(Item.getId(item));
+    }
+
+    public long getAmount(Fluid fluid) {
+        return counts.get(fluidKey(Registry.FLUID.getId(fluid)));
+    }
+
+    /**
+     * Incremented on every change, so that the screen only has to re-sort when something happened
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public List<Entry> getTopEntries(int limit) {
+        List<Entry> entries = new ArrayList<>(counts.size());
+        ObjectIterator<Int2LongMap.Entry> iterator = counts.int2LongEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            Int2LongMap.Entry entry = iterator.next();
+            entries.add(new Entry(entry.getIntKey(), entry.getLongValue()));
+        }
+        entries.sort((a, b) -> Long.compare(b.count, a.count));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    public void save(CompoundNBT nbt) {
+        ListNBT itemNames = new ListNBT();
+        ListNBT fluidNames = new ListNBT();
+        long[] itemCounts = new long[counts.size()];
+        long[] fluidAmounts = new long[counts.size()];
+        int items = 0;
+        int fluids = 0;
+        ObjectIterator<Int2LongMap.Entry> iterator = counts.int2LongEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            Int2LongMap.Entry entry = iterator.next();
+            int key = entry.getIntKey();
+            if (key >= 0) {
+                Item item = Item.byId(key);
+                if (item == Items.AIR || item.getRegistryName() == null) continue;
+                itemNames.add(StringNBT.valueOf(item.getRegistryName().toString()));
+                itemCounts[items++] = entry.getLongValue();
+            } else {
+                Fluid fluid = Registry.FLUID.byId(fluidKey(key));
+                if (fluid == Fluids.EMPTY || fluid.getRegistryName() == null) continue;
+                fluidNames.add(StringNBT.valueOf(fluid.getRegistryName().toString()));
+                fluidAmounts[fluids++] = entry.getLongValue();
+            }
+        }
+
+        CompoundNBT statistics = new CompoundNBT();
+        statistics.put("Items", itemNames);
+        statistics.putLongArray("Counts", trim(itemCounts, items));
+        statistics.put("Fluids", fluidNames);
+        statistics.putLongArray("Amounts", trim(fluidAmounts, fluids));
+        nbt.put("VoidStatistics", statistics);
+    }
+
+    private static long[] trim(long[] values, int length) {
+        if (length == values.length) return values;
+        long[] trimmed = new long[length];
+        System.arraycopy(values, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    public void load(CompoundNBT nbt) {
+        counts.clear();
+        total = 0;
+        ++version;
+
+        CompoundNBT statistics = nbt.getCompound("VoidStatistics");
+        ListNBT names = statistics.getList("Items", Constants.NBT.TAG_STRING);
+        long[] values = statistics.getLongArray("Counts");
+        int size = Math.min(names.size(), values.length);
+        for (int i = 0; i < size; ++i) {
+            Item item = ForgeRegistries.ITEMS.getValue(new ResourceLocation(names.getString(i)));
+            if (item == null || item == Items.AIR) continue; // the item's mod was removed
+            counts.addTo(Item.getId(item), values[i]);
+            total += values[i];
+        }
+
+        ListNBT fluidNames = statistics.getList("Fluids", Constants.NBT.TAG_STRING);
+        long[] amounts = statistics.getLongArray("Amounts");
+        size = Math.min(fluidNames.size(), amounts.length);
+        for (int i = 0; i < size; ++i) {
+            Fluid fluid = ForgeRegistries.FLUIDS.getValue(new ResourceLocation(fluidNames.getString(i)));
+            if (fluid == null || fluid == Fluids.EMPTY) continue;
+            counts.addTo(fluidKey(Registry.FLUID.getId(fluid)), amounts[i]);
+        }
+    }
+
+    /**
+     * Used to send the statistics to the client when the GUI is opened; registry ids are synced, so they are sent as is.
+     * Only the SNAPSHOT_ENTRIES largest counts are sent, since the open-GUI buffer is limited to 32600 bytes and a long-lived
+     *   nullifier can have voided thousands of different things. Counts only grow, so anything left out is smaller than
+     *   everything sent, and once it changes the next delta brings its full count; the total is sent separately.
+     */
+    public void write(PacketBuffer buffer) {
+        buffer.writeVarLong(total);
+        List<Entry> entries = getTopEntries(SNAPSHOT_ENTRIES);
+        buffer.writeVarInt(entries.size());
+        for (Entry entry : entries) {
+            buffer.writeVarInt(entry.id);
+            buffer.writeVarLong(entry.count);
+        }
+    }
+
+    public void read(PacketBuffer buffer) {
+        counts.clear();
+        total = buffer.readVarLong();
+        ++version;
+
+        int size = buffer.readVarInt();
+        for (int i = 0; i < size; ++i) {
+            counts.put(buffer.readVarInt(), buffer.readVarLong());
+        }
+    }
+
+    /**
+     * Writes the new total and the current counts of everything changed since the last delta; the values are absolute,
+     *   so a client that missed a delta is corrected by the next one
+     */
+    public void writeDelta(PacketBuffer buffer) {
+        buffer.writeVarLong(total);
+        buffer.writeVarInt(changedKeys.size());
+        IntIterator iterator = changedKeys.iterator();
+        while (iterator.hasNext()) {
+            int key = iterator.nextInt();
+            buffer.writeVarInt(key);
+            buffer.writeVarLong(counts.get(key));
+        }
+        changedKeys.clear();
+    }
+
+    public void readDelta(PacketBuffer buffer) {
+        total = buffer.readVarLong();
+        ++version;
+
+        int size = buffer.readVarInt();
+        for (int i = 0; i < size; ++i) {
+            counts.put(buffer.readVarInt(), buffer.readVarLong());
+        }
+    }
+
+    public static class Entry {
+        private final int id;
+        private final long count;
+
+        private Entry(int id, long count) {
+            this.id = id;
+            this.count = count;
+        }
+
+        public boolean isFluid() {
+            return id < 0;
+        }
+
+        /**
+         * @return the item, or for fluids the bucket holding it (which may be air)
+         */
+        public ItemStack getDisplayStack() {
+            return new ItemStack(isFluid() ? Registry.FLUID.byId(fluidKey(id)).getBucket() : Item.byId(id));
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.command;
+
+import com.callumwong.nullifier.core.ledger.VoidLedger;
+import com.callumwong.nullifier.core.ledger.VoidLedgers;
+import com.callumwong.nullifier.core.metrics.NullifierMetrics;
+import com.callumwong.nullifier.core.metrics.VoidSource;
+import com.callumwong.nullifier.core.scheduling.PurgeQueue;
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.command.arguments.ItemArgument;
+import net.minecraft.command.arguments.ItemPredicateArgument;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.server.ServerWorld;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The /nullifier command, for server operators
+ */
+public class NullifierCommand {
+    private static final int PERMISSION_LEVEL = 2;
+    private static final int LEDGER_LINES = 10;
+    private static final int MAX_PURGE_RADIUS = 1024;
+    private static final int WHOLE_DIMENSION = -1;
+
+    public static void register(CommandDispatcher<CommandSource> dispatcher) {
+        dispatcher.register(Commands.literal("nullifier")
+                .requires(source -> source.hasPermission(PERMISSION_LEVEL))
+                .then(Commands.literal("metrics")
+                        .executes(context -> printMetrics(context.getSource()))
+                        .then(Commands.literal("reset")
+                                .executes(context -> resetMetrics(context.getSource()))))
+                .then(Commands.literal("ledger")
+                        .then(Commands.argument("item", ItemArgument.item())
+                                .executes(context -> printLedger(context.getSource(), ItemArgument.getItem(context, "item").getItem()))))
+                .then(Commands.literal("purge")
+                        .then(Commands.literal("dimension")
+                                .executes(context -> purge(context.getSource(), WHOLE_DIMENSION, null))
+                                .then(Commands.argument("filter", ItemPredicateArgument.itemPredicate())
+                                        .executes(context -> purge(context.getSource(), WHOLE_DIMENSION, ItemPredicateArgument.getItemPredicate(context, "filter")))))
+                        .then(Commands.argument("radius", IntegerArgumentType.integer(1, MAX_PURGE_RADIUS))
+                                .executes(context -> purge(context.getSource(), IntegerArgumentType.getInteger(context, "radius"), null))
+                                .then(Commands.argument("filter", ItemPredicateArgument.itemPredicate())
+                                        .executes(context -> purge(context.getSource(), IntegerArgumentType.getInteger(context, "radius"),
+                                                ItemPredicateArgument.getItemPredicate(context, "filter")))))));
+    }
+
+    private static int printMetrics(CommandSource source) {
+        long itemsVoided = NullifierMetrics.getTotal(counters -> counters.itemsVoided);
+        source.sendSuccess(new TranslationTextComponent("commands.nullifier.metrics.totals", itemsVoided,
+                NullifierMetrics.getTotal(counters -> counters.insertCalls),
+                NullifierMetrics.getTotal(counters -> counters.rejectedInserts)), false);
+
+        printMap(source, "commands.nullifier.metrics.sources", NullifierMetrics.getCallsBySource());
+        printMap(source, "commands.nullifier.metrics.dimensions", NullifierMetrics.getByDimension(counters -> counters.itemsVoided));
+        source.sendSuccess(new TranslationTextComponent("commands.nullifier.metrics.scheduler",
+                NullifierMetrics.getTotal(counters -> counters.scheduledRuns),
+                NullifierMetrics.getTotal(counters -> counters.idleRuns),
+                NullifierMetrics.getTotal(counters -> counters.deferredRuns)), false);
+
+        long samples = NullifierMetrics.getLatencySamples();
+        if (samples > 0) printMap(source, "commands.nullifier.metrics.latency", NullifierMetrics.getLatencyHistogram());
+        return (int) Math.min(itemsVoided, Integer.MAX_VALUE);
+    }
+
+    private static void printMap(CommandSource source, String translationKey, Map<String, Long> values) {
+        source.sendSuccess(new TranslationTextComponent(translationKey), false);
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            source.sendSuccess(new TranslationTextComponent("commands.nullifier.metrics.entry", entry.getKey(), entry.getValue()), false);
+        }
+    }
+
+    /**
+     * Lists the nullifiers in the sender's dimension that voided the most of an item, per source, over the retained hours
+     */
+    private static int printLedger(CommandSource source, Item item) {
+        if (item.getRegistryName() == null) return 0;
+        List<VoidLedger.Entry> entries = VoidLedgers.getSavedData(source.getLevel()).getEntries(item.getRegistryName().toString());
+        // totals per position, one map per source
+        VoidSource[] sources = VoidSource.getValues();
+        List<Long2LongOpenHashMap> totals = new ArrayList<>(sources.length);
+        for (int i = 0; i < sources.length; ++i) totals.add(new Long2LongOpenHashMap());
+        for (VoidLedger.Entry entry : entries) {
+            if (entry.getSource() < 0 || entry.getSource() >= sources.length) continue;
+            totals.get(entry.getSource()).addTo(entry.getPosition(), entry.getCount());
+        }
+
+        List<long[]> rows = new ArrayList<>();
+        for (int i = 0; i < sources.length; ++i) {
+            for (Long2LongMap.Entry total : totals.get(i).long2LongEntrySet()) {
+                rows.add(new long[]{total.getLongKey(), i, total.getLongValue()});
+            }
+        }
+        rows.sort((a, b) -> Long.compare(b[2], a[2]));
+
+        source.sendSuccess(new TranslationTextComponent("commands.nullifier.ledger.header", item.getDescription(), rows.size()), false);
+        for (int i = 0; i < Math.min(LEDGER_LINES, rows.size()); ++i) {
+            BlockPos pos = BlockPos.of(rows.get(i)[0]);
+            source.sendSuccess(new TranslationTextComponent("commands.nullifier.ledger.entry", pos.getX(), pos.getY(), pos.getZ(),
+                    sources[(int) rows.get(i)[1]].name(), rows.get(i)[2]), false);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Starts removing the dropped items in the loaded chunks within radius blocks of the sender, or in its whole
+     *   dimension; PurgeJob does the rest over the following ticks
+     * @param filter null to remove every item
+     */
+    private static int purge(CommandSource source, int radius, @Nullable Predicate<ItemStack> filter) {
+        ServerWorld world = source.getLevel();
+        List<ItemEntity> items;
+        if (radius == WHOLE_DIMENSION) {
+            items = new ArrayList<>();
+            for (Entity entity : world.getEntities(EntityType.ITEM, entity -> true)) items.add((ItemEntity) entity);
+        } else {
+            Vector3d centre = source.getPosition();
+            items = world.getEntitiesOfClass(ItemEntity.class, new AxisAlignedBB(centre, centre).inflate(radius));
+        }
+
+        source.sendSuccess(new TranslationTextComponent("commands.nullifier.purge.started", items.size()), true);
+        PurgeQueue.enqueue(new PurgeJob(source, world, items, filter));
+        return items.size();
+    }
+
+    private static int resetMetrics(CommandSource source) {
+        NullifierMetrics.reset();
+        source.sendSuccess(new TranslationTextComponent("commands.nullifier.metrics.reset"), true);
+        return 1;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.command;
+
+import com.callumwong.nullifier.core.metrics.NullifierMetrics;
+import com.callumwong.nullifier.core.metrics.VoidSource;
+import net.minecraft.command.CommandSource;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.server.ServerWorld;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * One run of /nullifier purge, removing dropped items from loaded chunks without stalling the server.
+ * The items are snapshotted on the server thread, each with a copy of its stack, so the filter can be evaluated on a
+ *   fork-join pool against stacks nobody else touches. The matches are then removed back on the server thread, a
+ *   budgeted slice per tick, by PurgeQueue; items picked up or merged away in the meantime are skipped.
+ */
+public class PurgeJob {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Nullifier Purge Worker " + thread.getPoolIndex());
+        // the mod classes aren't visible from the system class loader the pool would otherwise use
+        thread.setContextClassLoader(PurgeJob.class.getClassLoader());
+        return thread;
+    }, null, false);
+
+    private final CommandSource source;
+    private final ServerWorld world;
+    private final int scanned;
+    private final long startTime;
+    private final CompletableFuture<List<ItemEntity>> matches;
+    private List<ItemEntity> toRemove;
+    private int cursor;
+    private long itemsRemoved;
+    private int entitiesRemoved;
+
+    /**
+     * @param filter null to remove every item
+     */
+    public PurgeJob(CommandSource source, ServerWorld world, List<ItemEntity> items, @Nullable Predicate<ItemStack> filter) {
+        this.source = source;
+        this.world = world;
+        this.scanned = items.size();
+        this.startTime = world.getGameTime();
+
+        if (filter == null) {
+            matches = CompletableFuture.completedFuture(items);
+            return;
+        }
+        List<Snapshot> snapshots = new ArrayList<>(items.size());
+        for (ItemEntity item : items) snapshots.add(new Snapshot(item, item.getItem().copy()));
+        matches = CompletableFuture.supplyAsync(() -> snapshots.parallelStream()
+                .filter(snapshot -> filter.test(snapshot.stack))
+                .map(snapshot -> snapshot.entity)
+                .collect(Collectors.toList()), POOL);
+    }
+
+    /**
+     * Called every tick by PurgeQueue on the server thread
+     * @return whether the purge is finished
+     */
+    public boolean tick(long deadline) {
+        if (toRemove == null) {
+            if (!matches.isDone()) return false;
+            try {
+                toRemove = matches.join();
+            } catch (RuntimeException e) {
+                LOGGER.error("Evaluating the purge filter failed", e);
+                source.sendFailure(new TranslationTextComponent("commands.nullifier.purge.failed"));
+                return true;
+            }
+            source.sendSuccess(new TranslationTextComponent("commands.nullifier.purge.matched", toRemove.size(), scanned), true);
+        }
+
+        while (cursor < toRemove.size()) {
+            ItemEntity item = toRemove.get(cursor++);
+            if (item.isAlive()) {
+                itemsRemoved += item.getItem().getCount();
+                ++entitiesRemoved;
+                item.remove();
+            }
+            if (cursor % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) return false;
+        }
+
+        NullifierMetrics.Counters metrics = NullifierMetrics.get(world.dimension());
+        if (itemsRemoved > 0) metrics.recordVoided(VoidSource.PURGE, itemsRemoved);
+        source.sendSuccess(new TranslationTextComponent("commands.nullifier.purge.done", itemsRemoved, entitiesRemoved,
+                world.getGameTime() - startTime), true);
+        return true;
+    }
+
+    private static class Snapshot {
+        private final ItemEntity entity;
+        private final ItemStack stack;
+
+        private Snapshot(ItemEntity entity, ItemStack stack) {
+            this.entity = entity;
+            this.stack = stack;
+        }
+    }
+}
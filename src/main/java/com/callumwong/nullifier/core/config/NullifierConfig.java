@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.core.config;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.config.ModConfig;
+
+/**
+ * Server side configuration.
+ * Values are copied into plain static fields whenever the config is (re)loaded, so the hot paths never go through
+ *   ForgeConfigSpec lookups.
+ */
+public class NullifierConfig {
+    public static final ForgeConfigSpec SERVER_SPEC;
+
+    private static final ForgeConfigSpec.BooleanValue DEFER_NOTIFICATIONS;
+    private static final ForgeConfigSpec.BooleanValue RECORD_FLUID_STATISTICS;
+    private static final ForgeConfigSpec.IntValue STATISTICS_SYNC_INTERVAL_TICKS;
+    private static final ForgeConfigSpec.IntValue OVERFLOW_RESYNC_TICKS;
+    private static final ForgeConfigSpec.BooleanValue ENABLE_EFFECTS;
+    private static final ForgeConfigSpec.IntValue EFFECT_INTERVAL_TICKS;
+    private static final ForgeConfigSpec.BooleanValue ENABLE_LEDGER;
+    private static final ForgeConfigSpec.IntValue LEDGER_BUFFER_SIZE;
+    private static final ForgeConfigSpec.IntValue LEDGER_RETENTION_HOURS;
+    private static final ForgeConfigSpec.IntValue LEDGER_MAX_LOG_MEGABYTES;
+    private static final ForgeConfigSpec.BooleanValue ENABLE_METRICS;
+    private static final ForgeConfigSpec.IntValue METRICS_LATENCY_SAMPLE_RATE;
+    private static final ForgeConfigSpec.IntValue SCHEDULER_BUDGET_MICROS;
+    private static final ForgeConfigSpec.IntValue SCHEDULER_MAX_BACKOFF_TICKS;
+    private static final ForgeConfigSpec.IntValue PURGE_BUDGET_MICROS;
+    private static final ForgeConfigSpec.IntValue RECOVERY_BUFFER_SIZE;
+    private static final ForgeConfigSpec.IntValue RECOVERY_PERMISSION_LEVEL;
+    private static final ForgeConfigSpec.BooleanValue ALLOW_PULL;
+    private static final ForgeConfigSpec.IntValue PULL_STACKS_PER_OPERATION;
+    private static final ForgeConfigSpec.IntValue PULL_INTERVAL_TICKS;
+    private static final ForgeConfigSpec.IntValue PULL_RESCAN_TICKS;
+    private static final ForgeConfigSpec.BooleanValue ALLOW_CLAIMS;
+    private static final ForgeConfigSpec.IntValue CLAIM_RADIUS_CHUNKS;
+    private static final ForgeConfigSpec.BooleanValue ALLOW_VACUUM;
+    private static final ForgeConfigSpec.IntValue VACUUM_RADIUS;
+    private static final ForgeConfigSpec.IntValue VACUUM_INTERVAL_TICKS;
+    private static final ForgeConfigSpec.BooleanValue ALLOW_ABSORB;
+    private static final ForgeConfigSpec.BooleanValue BANK_EXPERIENCE;
+    private static final ForgeConfigSpec.BooleanValue ALLOW_DRAIN;
+    private static final ForgeConfigSpec.IntValue DRAIN_RADIUS;
+    private static final ForgeConfigSpec.IntValue DRAIN_MAX_BLOCKS;
+    private static final ForgeConfigSpec.IntValue DRAIN_BLOCKS_PER_RUN;
+    private static final ForgeConfigSpec.IntValue DRAIN_INTERVAL_TICKS;
+
+    public static boolean deferNotifications = true;
+    public static boolean recordFluidStatistics = true;
+    public static int statisticsSyncIntervalTicks = 10;
+    public static int overflowResyncTicks = 20;
+    public static boolean enableEffects = true;
+    public static int effectIntervalTicks = 10;
+    public static boolean enableLedger = true;
+    public static int ledgerBufferSize = 65536;
+    public static int ledgerRetentionHours = 168;
+    public static int ledgerMaxLogMegabytes = 64;
+    public static boolean enableMetrics = true;
+    public static int metricsLatencySampleRate = 64;
+    public static int schedulerBudgetMicros = 1000;
+    public static int schedulerMaxBackoffTicks = 40;
+    public static int purgeBudgetMicros = 2000;
+    public static int recoveryBufferSize = 8;
+    public static int recoveryPermissionLevel = 2;
+    public static boolean allowPull = true;
+    public static int pullStacksPerOperation = 1;
+    public static int pullIntervalTicks = 8;
+    public static int pullRescanTicks = 40;
+    public static boolean allowClaims = true;
+    public static int claimRadiusChunks = 1;
+    public static boolean allowVacuum = true;
+    public static int vacuumRadius = 4;
+    public static int vacuumIntervalTicks = 10;
+    public static boolean allowAbsorb = true;
+    public static boolean bankExperience = true;
+    public static boolean allowDrain = true;
+    public static int drainRadius = 16;
+    public static int drainMaxBlocks = 4096;
+    public static int drainBlocksPerRun = 256;
+    public static int drainIntervalTicks = 2;
+
+    static {
+        ForgeConfigSpec.Builder builder = new ForgeConfigSpec.Builder();
+
+        builder.push("performance");
+        DEFER_NOTIFICATIONS = builder
+                .comment("Collapse all neighbour/comparator updates caused by voided items into at most one per nullifier per tick,",
+                        "and only mark the chunk for saving when the nullifier's saved state actually changed")
+                .define("deferNotifications", true);
+        builder.pop();
+
+        builder.push("statistics");
+        RECORD_FLUID_STATISTICS = builder
+                .comment("Count voided fluids in the nullifier statistics, next to the items")
+                .define("recordFluidStatistics", true);
+        STATISTICS_SYNC_INTERVAL_TICKS = builder
+                .comment("The minimum number of ticks between two statistics updates sent to a player with the nullifier GUI open")
+                .defineInRange("statisticsSyncIntervalTicks", 10, 1, 200);
+        builder.pop();
+
+        builder.push("overflow");
+        OVERFLOW_RESYNC_TICKS = builder
+                .comment("How often, in ticks, an overflow nullifier recounts its target inventory when it wasn't told about a change.",
+                        "Inventories beside the nullifier report their changes; inventories above or below it don't, and are",
+                        "recounted on the first check of every tick instead")
+                .defineInRange("overflowResyncTicks", 20, 1, 1200);
+        builder.pop();
+
+        builder.push("effects");
+        ENABLE_EFFECTS = builder
+                .comment("Show particles and play a sound when a nullifier voids items")
+                .define("enableEffects", true);
+        EFFECT_INTERVAL_TICKS = builder
+                .comment("The minimum number of ticks between two effects of the same nullifier; everything voided in between is shown as one")
+                .defineInRange("effectIntervalTicks", 10, 1, 200);
+        builder.pop();
+
+        builder.push("ledger");
+        ENABLE_LEDGER = builder
+                .comment("Record what every nullifier voided, where and from which source, in hourly totals per dimension.",
+                        "Takes effect when the server starts")
+                .define("enableLedger", true);
+        LEDGER_BUFFER_SIZE = builder
+                .comment("How many records per dimension may wait in memory for the ledger thread to write them; more are dropped")
+                .defineInRange("ledgerBufferSize", 65536, 1024, 4194304);
+        LEDGER_RETENTION_HOURS = builder
+                .comment("How many hours of totals are kept")
+                .defineInRange("ledgerRetentionHours", 168, 1, 8760);
+        LEDGER_MAX_LOG_MEGABYTES = builder
+                .comment("The size at which a dimension's record log is compacted into the totals early")
+                .defineInRange("ledgerMaxLogMegabytes", 64, 1, 4096);
+        builder.pop();
+
+        builder.push("metrics");
+        ENABLE_METRICS = builder
+                .comment("Count voided items, insert calls and rejected inserts per dimension, readable with /nullifier metrics or over JMX")
+                .define("enableMetrics", true);
+        METRICS_LATENCY_SAMPLE_RATE = builder
+                .comment("Time one in this many item handler inserts for the latency histogram; 0 disables the histogram")
+                .defineInRange("metricsLatencySampleRate", 64, 0, 1000000);
+        builder.pop();
+
+        builder.push("scheduler");
+        SCHEDULER_BUDGET_MICROS = builder
+                .comment("The time, in microseconds, the periodic work of all nullifiers together (vacuum sweeps, pulls) may take per server tick.",
+                        "Work that didn't get its turn runs on the following ticks and is counted as deferred in /nullifier metrics")
+                .defineInRange("schedulerBudgetMicros", 1000, 10, 50000);
+        SCHEDULER_MAX_BACKOFF_TICKS = builder
+                .comment("Nullifiers that find nothing to do wait twice as long before trying again, up to this many ticks")
+                .defineInRange("schedulerMaxBackoffTicks", 40, 1, 1200);
+        builder.pop();
+
+        builder.push("purge");
+        PURGE_BUDGET_MICROS = builder
+                .comment("The time, in microseconds, /nullifier purge may spend removing items per server tick; the rest is removed on the following ticks")
+                .defineInRange("purgeBudgetMicros", 2000, 100, 50000);
+        builder.pop();
+
+        builder.push("recovery");
+        RECOVERY_BUFFER_SIZE = builder
+                .comment("How many of the last voided stacks each nullifier remembers, for operators to recover from the GUI; 0 disables it.",
+                        "Identical stacks in a row take up one entry")
+                .defineInRange("recoveryBufferSize", 8, 0, 256);
+        RECOVERY_PERMISSION_LEVEL = builder
+                .comment("The permission level needed to recover voided stacks")
+                .defineInRange("recoveryPermissionLevel", 2, 0, 4);
+        builder.pop();
+
+        builder.push("pull");
+        ALLOW_PULL = builder
+                .comment("Allow nullifiers to be switched into pull mode, in which they extract and void whole stacks from neighbouring inventories")
+                .define("allowPull", true);
+        PULL_STACKS_PER_OPERATION = builder
+                .comment("How many stacks a nullifier pulls per operation")
+                .defineInRange("pullStacksPerOperation", 1, 1, 64);
+        PULL_INTERVAL_TICKS = builder
+                .comment("The minimum number of ticks between two pull operations of the same nullifier (a hopper waits 8)")
+                .defineInRange("pullIntervalTicks", 8, 1, 200);
+        PULL_RESCAN_TICKS = builder
+                .comment("How often, in ticks, an empty-looking inventory is scanned again when it didn't report a change")
+                .defineInRange("pullRescanTicks", 40, 1, 1200);
+        builder.pop();
+
+        builder.push("claims");
+        ALLOW_CLAIMS = builder
+                .comment("Allow nullifiers to be switched into claim mode, in which dropped items matching their filter are voided",
+                        "before they spawn in the chunks around them")
+                .define("allowClaims", true);
+        CLAIM_RADIUS_CHUNKS = builder
+                .comment("How many chunks around the nullifier's own chunk (in each direction) a claim covers; 0 claims only its own chunk")
+                .defineInRange("claimRadiusChunks", 1, 0, 4);
+        builder.pop();
+
+        builder.push("vacuum");
+        ALLOW_VACUUM = builder
+                .comment("Allow nullifiers to be switched into vacuum mode, in which they delete dropped items around them")
+                .define("allowVacuum", true);
+        VACUUM_RADIUS = builder
+                .comment("How many blocks away from the nullifier (in each direction) dropped items are deleted")
+                .defineInRange("vacuumRadius", 4, 1, 16);
+        VACUUM_INTERVAL_TICKS = builder
+                .comment("The minimum number of ticks between two sweeps of the same vacuum")
+                .defineInRange("vacuumIntervalTicks", 10, 1, 200);
+        ALLOW_ABSORB = builder
+                .comment("Allow nullifiers to be switched into absorb mode, in which they remove experience orbs and the arrows and tridents",
+                        "stuck in blocks around them that players can't pick up, within vacuumRadius")
+                .define("allowAbsorb", true);
+        BANK_EXPERIENCE = builder
+                .comment("Keep the experience of absorbed orbs in the nullifier, for players to withdraw from the GUI, instead of deleting it")
+                .define("bankExperience", true);
+        builder.pop();
+
+        builder.push("drain");
+        ALLOW_DRAIN = builder
+                .comment("Allow nullifiers to be switched into drain mode, in which they remove the fluid connected to them in the world")
+                .define("allowDrain", true);
+        DRAIN_RADIUS = builder
+                .comment("How many blocks away from the nullifier (in each direction) fluid is removed")
+                .defineInRange("drainRadius", 16, 1, 64);
+        DRAIN_MAX_BLOCKS = builder
+                .comment("The most fluid blocks one drain removes before it stops; it starts again from the nullifier's sides next time")
+                .defineInRange("drainMaxBlocks", 4096, 1, 262144);
+        DRAIN_BLOCKS_PER_RUN = builder
+                .comment("How many blocks a drain checks each time it runs; the rest wait for its next run")
+                .defineInRange("drainBlocksPerRun", 256, 1, 8192);
+        DRAIN_INTERVAL_TICKS = builder
+                .comment("The minimum number of ticks between two runs of the same drain")
+                .defineInRange("drainIntervalTicks", 2, 1, 200);
+        builder.pop();
+
+        SERVER_SPEC = builder.build();
+    }
+
+    @SubscribeEvent
+    public static void onLoad(ModConfig.Loading event) {
+        if (event.getConfig().getSpec() == SERVER_SPEC) bake();
+    }
+
+    @SubscribeEvent
+    public static void onReload(ModConfig.Reloading event) {
+        if (event.getConfig().getSpec() == SERVER_SPEC) bake();
+    }
+
+    private static void bake() {
+        deferNotifications = DEFER_NOTIFICATIONS.get();
+        recordFluidStatistics = RECORD_FLUID_STATISTICS.get();
+        statisticsSyncIntervalTicks = STATISTICS_SYNC_INTERVAL_TICKS.get();
+        overflowResyncTicks = OVERFLOW_RESYNC_TICKS.get();
+        enableEffects = ENABLE_EFFECTS.get();
+        effectIntervalTicks = EFFECT_INTERVAL_TICKS.get();
+        enableLedger = ENABLE_LEDGER.get();
+        ledgerBufferSize = LEDGER_BUFFER_SIZE.get();
+        ledgerRetentionHours = LEDGER_RETENTION_HOURS.get();
+        ledgerMaxLogMegabytes = LEDGER_MAX_LOG_MEGABYTES.get();
+        enableMetrics = ENABLE_METRICS.get();
+        metricsLatencySampleRate = METRICS_LATENCY_SAMPLE_RATE.get();
+        schedulerBudgetMicros = SCHEDULER_BUDGET_MICROS.get();
+        schedulerMaxBackoffTicks = SCHEDULER_MAX_BACKOFF_TICKS.get();
+        purgeBudgetMicros = PURGE_BUDGET_MICROS.get();
+        recoveryBufferSize = RECOVERY_BUFFER_SIZE.get();
+        recoveryPermissionLevel = RECOVERY_PERMISSION_LEVEL.get();
+        allowPull = ALLOW_PULL.get();
+        pullStacksPerOperation = PULL_STACKS_PER_OPERATION.get();
+        pullIntervalTicks = PULL_INTERVAL_TICKS.get();
+        pullRescanTicks = PULL_RESCAN_TICKS.get();
+        allowClaims = ALLOW_CLAIMS.get();
+        claimRadiusChunks = CLAIM_RADIUS_CHUNKS.get();
+        allowVacuum = ALLOW_VACUUM.get();
+        vacuumRadius = VACUUM_RADIUS.get();
+        vacuumIntervalTicks = VACUUM_INTERVAL_TICKS.get();
+        allowAbsorb = ALLOW_ABSORB.get();
+        bankExperience = BANK_EXPERIENCE.get();
+        allowDrain = ALLOW_DRAIN.get();
+        drainRadius = DRAIN_RADIUS.get();
+        drainMaxBlocks = DRAIN_MAX_BLOCKS.get();
+        drainBlocksPerRun = DRAIN_BLOCKS_PER_RUN.get();
+        drainIntervalTicks = DRAIN_INTERVAL_TICKS.get();
+    }
+}
@@ -13,6 +13,7 @@
 package com.callumwong.nullifier.core.event;
 
 import com.callumwong.nullifier.common.blocks.NullifierBlock;
+import com.callumwong.nullifier.common.capabilities.CapabilityVoidSink;
 import com.callumwong.nullifier.common.containers.NullifierContainer;
 import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
 import net.minecraft.block.AbstractBlock;
@@ -26,6 +27,7 @@ import net.minecraft.tileentity.TileEntityType;
 import net.minecraftforge.common.extensions.IForgeContainerType;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 
 public class EventHandler {
     public static Block nullifierBlock;
@@ -34,6 +36,11 @@ public class EventHandler {
     public static TileEntityType<NullifierTileEntity> nullifierTileEntityType;
     public static ContainerType<NullifierContainer> nullifierContainerType;
 
+    @SubscribeEvent
+    public static void onCommonSetup(FMLCommonSetupEvent event) {
+        event.enqueueWork(CapabilityVoidSink::register);
+    }
+
     @SubscribeEvent
     public static void registerBlocks(RegistryEvent.Register<Block> event) {
         nullifierBlock = new NullifierBlock(AbstractBlock.Properties.of(Material.STONE).requiresCorrectToolForDrops().strength(3.5F));
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.core.event;
+
+import com.callumwong.nullifier.common.tiles.ItemFilter;
+import com.callumwong.nullifier.core.command.NullifierCommand;
+import com.callumwong.nullifier.core.ledger.VoidLedgers;
+import com.callumwong.nullifier.core.metrics.NullifierMetrics;
+import com.callumwong.nullifier.core.scheduling.EffectQueue;
+import com.callumwong.nullifier.core.scheduling.NotificationQueue;
+import com.callumwong.nullifier.core.scheduling.NullifierScheduler;
+import com.callumwong.nullifier.core.scheduling.OffThreadVoidQueue;
+import com.callumwong.nullifier.core.scheduling.PurgeQueue;
+import com.callumwong.nullifier.core.scheduling.ViewerSyncQueue;
+import com.callumwong.nullifier.core.vacuum.ChunkClaimIndex;
+import com.callumwong.nullifier.core.vacuum.VacuumIndex;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.event.server.FMLServerStartedEvent;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import net.minecraftforge.fml.event.server.FMLServerStoppingEvent;
+
+/**
+ * Handlers for events fired on the Forge event bus (as opposed to EventHandler, which listens on the mod event bus)
+ */
+public class ServerEventHandler {
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+        ItemFilter.tick();
+        NullifierScheduler.tick();
+        OffThreadVoidQueue.drain();
+        NotificationQueue.flush();
+        ViewerSyncQueue.tick();
+        EffectQueue.tick();
+        VoidLedgers.tick();
+        PurgeQueue.tick();
+    }
+
+    /**
+     * Fired on both sides whenever item tags are (re)loaded; compiled filters depend on them and are rebuilt by the next
+     *   server tick
+     */
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent.VanillaTagTypes event) {
+        ItemFilter.onTagsUpdated();
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld().isClientSide()) return;
+        if (!(event.getWorld() instanceof World)) return;
+        NullifierScheduler.onWorldUnload((World) event.getWorld());
+        VacuumIndex.onWorldUnload((World) event.getWorld());
+        ChunkClaimIndex.onWorldUnload((World) event.getWorld());
+    }
+
+    /**
+     * Runs for every entity added to a world, so anything but a server-side item returns straight away
+     */
+    @SubscribeEvent
+    public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+        if (!(event.getEntity() instanceof ItemEntity) || !(event.getWorld() instanceof ServerWorld)) return;
+        if (ChunkClaimIndex.tryVoid((ServerWorld) event.getWorld(), (ItemEntity) event.getEntity())) event.setCanceled(true);
+    }
+
+    /**
+     * Fired after the world and its SavedData were written
+     */
+    @SubscribeEvent
+    public static void onWorldSave(WorldEvent.Save event) {
+        if (event.getWorld() instanceof ServerWorld) VoidLedgers.onWorldSave((ServerWorld) event.getWorld());
+    }
+
+    @SubscribeEvent
+    public static void onRegisterCommands(RegisterCommandsEvent event) {
+        NullifierCommand.register(event.getDispatcher());
+    }
+
+    @SubscribeEvent
+    public static void onServerStarted(FMLServerStartedEvent event) {
+        NullifierMetrics.registerMBean();
+        VoidLedgers.start(event.getServer());
+    }
+
+    /**
+     * Fired before the worlds are saved for the last time
+     */
+    @SubscribeEvent
+    public static void onServerStopping(FMLServerStoppingEvent event) {
+        VoidLedgers.stop();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        NotificationQueue.clear();
+        OffThreadVoidQueue.clear();
+        VacuumIndex.clear();
+        ChunkClaimIndex.clear();
+        NullifierScheduler.clear();
+        ViewerSyncQueue.clear();
+        EffectQueue.clear();
+        PurgeQueue.clear();
+        ItemFilter.clear();
+        NullifierMetrics.unregisterMBean();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.ledger;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-capacity single-producer single-consumer ring of ledger records, kept as parallel primitive arrays.
+ * The server thread appends without allocating or blocking; the ledger thread drains it to disk. When the ledger
+ *   thread falls behind and the ring is full, records are dropped and counted rather than stalling the tick.
+ */
+public class LedgerBuffer {
+    /**
+     * time (8) + position (8) + item id (4) + count (4) + source (1)
+     */
+    public static final int RECORD_SIZE = 25;
+
+    private final int mask;
+    private final long[] times;
+    private final long[] positions;
+    private final int[] items;
+    private final int[] counts;
+    private final byte[] sources;
+
+    private final AtomicLong head = new AtomicLong(); // only written by the server thread
+    private final AtomicLong tail = new AtomicLong(); // only written by the ledger thread
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public LedgerBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        times = new long[size];
+        positions = new long[size];
+        items = new int[size];
+        counts = new int[size];
+        sources = new byte[size];
+    }
+
+    public boolean append(long time, long position, int item, int count, byte source) {
+        long index = head.get();
+        if (index - tail.get() > mask) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        int slot = (int) index & mask;
+        times[slot] = time;
+        positions[slot] = position;
+        items[slot] = item;
+        counts[slot] = count;
+        sources[slot] = source;
+        head.lazySet(index + 1);
+        return true;
+    }
+
+    /**
+     * Writes every record appended so far; ledger thread only
+     * @param palette told about every item id written, so it can record the id's name
+     * @return the number of records written
+     */
+    public int drainTo(DataOutput out, LedgerPalette palette) throws IOException {
+        long start = tail.get();
+        long end = head.get();
+        for (long index = start; index < end; ++index) {
+            int slot = (int) index & mask;
+            palette.ensure(items[slot]);
+            out.writeLong(times[slot]);
+            out.writeLong(positions[slot]);
+            out.writeInt(items[slot]);
+            out.writeInt(counts[slot]);
+            out.writeByte(sources[slot]);
+        }
+        tail.lazySet(end);
+        return (int) (end - start);
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.ledger;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.item.Item;
+import net.minecraft.util.ResourceLocation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The raw item ids used by one server session's log, written next to it as "id name" lines.
+ * Raw ids are only stable within a session, so a log left over from an earlier session (e.g. after a crash) is read
+ *   back through its own palette. Ledger thread only.
+ */
+public class LedgerPalette {
+    private final Path path;
+    private final Int2ObjectMap<String> names = new Int2ObjectOpenHashMap<>();
+    private BufferedWriter writer;
+
+    public LedgerPalette(Path path) {
+        this.path = path;
+    }
+
+    public static LedgerPalette read(Path path) throws IOException {
+        LedgerPalette palette = new LedgerPalette(path);
+        if (!Files.exists(path)) return palette;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space <= 0) continue;
+                palette.names.put(Integer.parseInt(line.substring(0, space)), line.substring(space + 1));
+            }
+        }
+        return palette;
+    }
+
+    public void ensure(int id) throws IOException {
+        if (names.containsKey(id)) return;
+        ResourceLocation name = Item.byId(id).getRegistryName();
+        String value = name == null ? "minecraft:air" : name.toString();
+        names.put(id, value);
+        if (writer == null) {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        writer.write(id + " " + value);
+        writer.newLine();
+        writer.flush();
+    }
+
+    public String getName(int id) {
+        String name = names.get(id);
+        return name == null ? "minecraft:air" : name;
+    }
+
+    public void close() throws IOException {
+        if (writer == null) return;
+        writer.close();
+        writer = null;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.ledger;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.StringNBT;
+import net.minecraft.world.storage.WorldSavedData;
+import net.minecraftforge.common.util.Constants;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The compacted part of a dimension's void ledger: how much of each item every nullifier voided per source and per
+ *   hour, for as many hours as ledgerRetentionHours keeps.
+ * Individual records only live in the append-only log until their hour is over; see VoidLedgers.
+ * Server thread only.
+ */
+public class VoidLedger extends WorldSavedData {
+    public static final String NAME = "nullifier_ledger";
+
+    private final Map<Entry, Entry> entries = new HashMap<>();
+
+    public VoidLedger() {
+        super(NAME);
+    }
+
+    public void merge(Collection<Entry> aggregates) {
+        if (aggregates.isEmpty()) return;
+        for (Entry aggregate : aggregates) {
+            Entry entry = entries.get(aggregate);
+            if (entry == null) entries.put(aggregate, aggregate);
+            else entry.add(aggregate.count);
+        }
+        setDirty();
+    }
+
+    public void prune(long oldestHour) {
+        Iterator<Entry> iterator = entries.keySet().iterator();
+        boolean removed = false;
+        while (iterator.hasNext()) {
+            if (iterator.next().hour < oldestHour) {
+                iterator.remove();
+                removed = true;
+            }
+        }
+        if (removed) setDirty();
+    }
+
+    public List<Entry> getEntries(String item) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries.keySet()) {
+            if (entry.item.equals(item)) result.add(entry);
+        }
+        return result;
+    }
+
+    @Override
+    public void load(CompoundNBT nbt) {
+        entries.clear();
+        ListNBT names = nbt.getList("ItemNames", Constants.NBT.TAG_STRING);
+        long[] hours = nbt.getLongArray("Hours");
+        long[] positions = nbt.getLongArray("Positions");
+        byte[] sources = nbt.getByteArray("Sources");
+        int[] items = nbt.getIntArray("Items");
+        long[] counts = nbt.getLongArray("Counts");
+        int size = Math.min(Math.min(hours.length, positions.length), Math.min(Math.min(sources.length, items.length), counts.length));
+        for (int i = 0; i < size; ++i) {
+            if (items[i] < 0 || items[i] >= names.size()) continue;
+            Entry entry = new Entry(hours[i], positions[i], sources[i], names.getString(items[i]), counts[i]);
+            entries.put(entry, entry);
+        }
+    }
+
+    @Override
+    public CompoundNBT save(CompoundNBT nbt) {
+        int size = entries.size();
+        long[] hours = new long[size];
+        long[] positions = new long[size];
+        byte[] sources = new byte[size];
+        int[] items = new int[size];
+        long[] counts = new long[size];
+        ListNBT names = new ListNBT();
+        Object2IntMap<String> nameIndices = new Object2IntOpenHashMap<>();
+        nameIndices.defaultReturnValue(-1);
+        int i = 0;
+        for (Entry entry : entries.keySet()) {
+            hours[i] = entry.hour;
+            positions[i] = entry.position;
+            sources[i] = entry.source;
+            int index = nameIndices.getInt(entry.item);
+            if (index < 0) {
+                index = names.size();
+                names.add(StringNBT.valueOf(entry.item));
+                nameIndices.put(entry.item, index);
+            }
+            items[i] = index;
+            counts[i] = entry.count;
+            ++i;
+        }
+        nbt.put("ItemNames", names);
+        nbt.putLongArray("Hours", hours);
+        nbt.putLongArray("Positions", positions);
+        nbt.putByteArray("Sources", sources);
+        nbt.putIntArray("Items", items);
+        nbt.putLongArray("Counts", counts);
+        return nbt;
+    }
+
+    /**
+     * The amount of one item voided by one nullifier from one source within one hour (since the epoch)
+     */
+    public static class Entry {
+        private final long hour;
+        private final long position;
+        private final byte source;
+        private final String item;
+        private long count;
+
+        public Entry(long hour, long position, byte source, String item, long count) {
+            this.hour = hour;
+            this.position = position;
+            this.source = source;
+            this.item = item;
+            this.count = count;
+        }
+
+        public long getHour() {
+            return hour;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public byte getSource() {
+            return source;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        void add(long amount) {
+            count += amount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Entry)) return false;
+            Entry entry = (Entry) o;
+            return hour == entry.hour && position == entry.position && source == entry.source && item.equals(entry.item);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hour, position, source, item);
+        }
+    }
+}
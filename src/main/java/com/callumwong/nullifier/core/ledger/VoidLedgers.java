@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.ledger;
+
+import com.callumwong.nullifier.core.config.NullifierConfig;
+import com.callumwong.nullifier.core.metrics.VoidSource;
+import net.minecraft.item.Item;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraft.world.storage.FolderName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The dimension-wide record of what every nullifier voided, where and from which source.
+ * On the server thread, a voided stack only becomes a fixed-size record in the dimension's LedgerBuffer. A single
+ *   background thread appends the buffers to a binary log per dimension and session every second, and every few
+ *   minutes (or once the log grows past ledgerMaxLogMegabytes) folds the log into hourly aggregates and starts a new one.
+ *   The aggregates are handed back to the server thread, which merges them into the dimension's VoidLedger SavedData
+ *   and drops hours older than ledgerRetentionHours, so neither the log nor the SavedData grow without bound.
+ * A compacted log is only deleted once the world was saved with its aggregates merged (see onWorldSave); until then it
+ *   is skipped by later compactions, and after a crash it is simply compacted again.
+ * The tick never waits for the disk; only stopping the server flushes and compacts synchronously.
+ */
+public class VoidLedgers {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long FLUSH_INTERVAL_MILLIS = 1_000L;
+    private static final long COMPACTION_INTERVAL_MILLIS = 300_000L;
+    private static final String LOG_SUFFIX = ".log";
+    private static final String PALETTE_SUFFIX = ".names";
+
+    private static final Map<RegistryKey<World>, DimensionLedger> DIMENSIONS = new HashMap<>();
+    private static final List<DimensionLedger> LEDGERS = new CopyOnWriteArrayList<>();
+    // compacted logs whose aggregates are merged but not saved yet; server thread only
+    private static final Map<RegistryKey<World>, List<Path>> AWAITING_SAVE = new HashMap<>();
+
+    private static ScheduledExecutorService executor;
+    private static Path root;
+    private static long session;
+    private static long lastPruneHour;
+
+    public static void start(MinecraftServer server) {
+        if (!NullifierConfig.enableLedger || executor != null) return;
+        root = server.getWorldPath(FolderName.ROOT).resolve("data").resolve("nullifier_ledger");
+        session = System.currentTimeMillis();
+        AWAITING_SAVE.clear();
+        // Every dimension gets its ledger up front, so logs left behind by a crash are compacted too
+        for (ServerWorld world : server.getAllLevels()) getOrCreate(world);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Nullifier ledger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> forEachLedger(false), FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(() -> forEachLedger(true), 0, COMPACTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called on the server thread for every voided stack
+     */
+    public static void record(World world, BlockPos pos, Item item, long count, VoidSource source) {
+        if (executor == null) return;
+        DimensionLedger ledger = DIMENSIONS.get(world.dimension());
+        if (ledger == null) return;
+        ledger.buffer.append(System.currentTimeMillis(), pos.asLong(), Item.getId(item), (int) Math.min(count, Integer.MAX_VALUE), (byte) source.ordinal());
+    }
+
+    /**
+     * Merges whatever the ledger thread compacted into the SavedData; server thread
+     */
+    public static void tick() {
+        if (DIMENSIONS.isEmpty()) return;
+        long hour = System.currentTimeMillis() / HOUR_MILLIS;
+        boolean prune = hour != lastPruneHour;
+        lastPruneHour = hour;
+        for (Map.Entry<RegistryKey<World>, DimensionLedger> entry : DIMENSIONS.entrySet()) {
+            DimensionLedger ledger = entry.getValue();
+            Compaction compaction;
+            while ((compaction = ledger.compacted.poll()) != null) {
+                if (!compaction.aggregates.isEmpty()) ledger.getSavedData().merge(compaction.aggregates);
+                AWAITING_SAVE.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).addAll(compaction.logs);
+            }
+            if (prune) ledger.getSavedData().prune(hour - NullifierConfig.ledgerRetentionHours);
+        }
+    }
+
+    /**
+     * Must run before the worlds are saved for the last time, so the final aggregates make it into the SavedData
+     */
+    public static void stop() {
+        if (executor == null) return;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) LOGGER.warn("The nullifier ledger thread didn't stop in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+
+        forEachLedger(true);
+        tick();
+        DIMENSIONS.clear();
+        LEDGERS.clear();
+    }
+
+    /**
+     * Called on the server thread after the world, and with it the VoidLedger SavedData, was saved: the logs whose
+     *   aggregates were merged before the save aren't needed any more
+     */
+    public static void onWorldSave(ServerWorld world) {
+        List<Path> logs = AWAITING_SAVE.remove(world.dimension());
+        if (logs == null) return;
+        DimensionLedger ledger = DIMENSIONS.get(world.dimension());
+        Runnable delete = () -> {
+            for (Path log : logs) {
+                try {
+                    Files.deleteIfExists(log);
+                    Files.deleteIfExists(paletteFile(log));
+                } catch (IOException e) {
+                    LOGGER.error("Could not delete the compacted nullifier ledger log {}", log, e);
+                }
+                if (ledger != null) ledger.handedOver.remove(log);
+            }
+        };
+        // on the ledger thread while it runs, so a compaction never sees a log disappear halfway
+        if (executor != null) executor.execute(delete);
+        else delete.run();
+    }
+
+    public static VoidLedger getSavedData(ServerWorld world) {
+        return world.getDataStorage().computeIfAbsent(VoidLedger::new, VoidLedger.NAME);
+    }
+
+    public static long getDropped() {
+        long dropped = 0;
+        for (DimensionLedger ledger : LEDGERS) dropped += ledger.buffer.getDropped();
+        return dropped;
+    }
+
+    private static void getOrCreate(ServerWorld world) {
+        RegistryKey<World> dimension = world.dimension();
+        if (DIMENSIONS.containsKey(dimension)) return;
+        String directoryName = dimension.location().getNamespace() + "_" + dimension.location().getPath().replace('/', '_');
+        DimensionLedger ledger = new DimensionLedger(world, root.resolve(directoryName), new LedgerBuffer(NullifierConfig.ledgerBufferSize));
+        DIMENSIONS.put(dimension, ledger);
+        LEDGERS.add(ledger);
+    }
+
+    private static void forEachLedger(boolean compact) {
+        for (DimensionLedger ledger : LEDGERS) {
+            try {
+                if (compact || ledger.isLogTooLarge()) ledger.compact();
+                else ledger.flush();
+            } catch (IOException e) {
+                LOGGER.error("Could not write the nullifier ledger in {}", ledger.directory, e);
+            }
+        }
+    }
+
+    private static class DimensionLedger {
+        private final ServerWorld world;
+        private final Path directory;
+        private final LedgerBuffer buffer;
+        private final Queue<Compaction> compacted = new ConcurrentLinkedQueue<>();
+        // logs already compacted and waiting to be deleted, which later compactions must skip
+        private final Set<Path> handedOver = ConcurrentHashMap.newKeySet();
+
+        // Ledger thread only
+        private DataOutputStream out;
+        private LedgerPalette palette;
+        private long logSize;
+        private int generation;
+
+        private DimensionLedger(ServerWorld world, Path directory, LedgerBuffer buffer) {
+            this.world = world;
+            this.directory = directory;
+            this.buffer = buffer;
+        }
+
+        private VoidLedger getSavedData() {
+            return VoidLedgers.getSavedData(world);
+        }
+
+        private Path logFile() {
+            return directory.resolve(session + "-" + generation + LOG_SUFFIX);
+        }
+
+        private boolean isLogTooLarge() {
+            return logSize >= NullifierConfig.ledgerMaxLogMegabytes * 1024L * 1024L;
+        }
+
+        private void flush() throws IOException {
+            if (out == null) {
+                Files.createDirectories(directory);
+                palette = new LedgerPalette(paletteFile(logFile()));
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(logFile(), StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+                logSize = Files.size(logFile());
+            }
+            int written = buffer.drainTo(out, palette);
+            if (written == 0) return;
+            out.flush();
+            logSize += (long) written * LedgerBuffer.RECORD_SIZE;
+        }
+
+        /**
+         * Folds every log in the directory, including those of earlier sessions, into hourly aggregates and hands both
+         *   to the server thread; the next flush starts a new log
+         */
+        private void compact() throws IOException {
+            flush();
+            out.close();
+            out = null;
+            palette.close();
+            palette = null;
+            ++generation;
+
+            Map<VoidLedger.Entry, VoidLedger.Entry> aggregates = new HashMap<>();
+            List<Path> logs = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + LOG_SUFFIX)) {
+                for (Path log : stream) {
+                    if (!handedOver.contains(log)) logs.add(log);
+                }
+            }
+            for (Path log : logs) {
+                LedgerPalette logPalette = LedgerPalette.read(paletteFile(log));
+                long records = Files.size(log) / LedgerBuffer.RECORD_SIZE;
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log)))) {
+                    for (long i = 0; i < records; ++i) {
+                        long hour = in.readLong() / HOUR_MILLIS;
+                        long position = in.readLong();
+                        String item = logPalette.getName(in.readInt());
+                        int count = in.readInt();
+                        byte source = in.readByte();
+                        VoidLedger.Entry entry = new VoidLedger.Entry(hour, position, source, item, count);
+                        VoidLedger.Entry existing = aggregates.putIfAbsent(entry, entry);
+                        if (existing != null) existing.add(count);
+                    }
+                }
+                handedOver.add(log);
+            }
+            if (!logs.isEmpty()) compacted.add(new Compaction(new ArrayList<>(aggregates.values()), logs));
+        }
+    }
+
+    private static Path paletteFile(Path log) {
+        String name = log.getFileName().toString();
+        return log.resolveSibling(name.substring(0, name.length() - LOG_SUFFIX.length()) + PALETTE_SUFFIX);
+    }
+
+    private static class Compaction {
+        private final Collection<VoidLedger.Entry> aggregates;
+        private final List<Path> logs;
+
+        private Compaction(Collection<VoidLedger.Entry> aggregates, List<Path> logs) {
+            this.aggregates = aggregates;
+            this.logs = logs;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.metrics;
+
+import com.callumwong.nullifier.core.config.NullifierConfig;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.world.World;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Global and per-dimension counters of what the nullifiers are doing, cheap enough to leave on.
+ * All counters are LongAdders, so recording never contends even if a capability is called off the server thread; the
+ *   global totals are only summed up when read, by the /nullifier metrics command or over JMX.
+ * Insert latency is sampled (one in metricsLatencySampleRate calls) into a power-of-two histogram of nanoseconds.
+ */
+public class NullifierMetrics {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String OBJECT_NAME = "com.callumwong.nullifier:type=Metrics";
+
+    /**
+     * Bucket i counts samples below 2^(i + MIN_BUCKET_SHIFT) nanoseconds; the last bucket counts everything above
+     */
+    private static final int MIN_BUCKET_SHIFT = 7;
+    private static final int BUCKET_COUNT = 18;
+
+    private static final Map<RegistryKey<World>, Counters> DIMENSIONS = new ConcurrentHashMap<>();
+    private static final Function<RegistryKey<World>, Counters> NEW_COUNTERS = dimension -> new Counters();
+    private static final LongAdder[] LATENCY_BUCKETS = newAdders(BUCKET_COUNT);
+
+    private static ObjectName registeredName;
+
+    /**
+     * The counters of a dimension; callers on hot paths should keep the returned instance rather than look it up every time
+     */
+    public static Counters get(RegistryKey<World> dimension) {
+        return DIMENSIONS.computeIfAbsent(dimension, NEW_COUNTERS);
+    }
+
+    /**
+     * @return the start time to pass to endLatencySample, or 0 if this call isn't sampled
+     */
+    public static long startLatencySample() {
+        int sampleRate = NullifierConfig.metricsLatencySampleRate;
+        if (sampleRate <= 0 || !NullifierConfig.enableMetrics) return 0;
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) return 0;
+        long now = System.nanoTime();
+        return now == 0 ? 1 : now;
+    }
+
+    public static void endLatencySample(long start) {
+        if (start == 0) return;
+        long elapsed = System.nanoTime() - start;
+        int bucket = 64 - Long.numberOfLeadingZeros(elapsed >>> MIN_BUCKET_SHIFT);
+        LATENCY_BUCKETS[Math.min(bucket, BUCKET_COUNT - 1)].increment();
+    }
+
+    public static long getTotal(Function<Counters, LongAdder> counter) {
+        long total = 0;
+        for (Counters counters : DIMENSIONS.values()) total += counter.apply(counters).sum();
+        return total;
+    }
+
+    public static Map<String, Long> getByDimension(Function<Counters, LongAdder> counter) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<RegistryKey<World>, Counters> entry : DIMENSIONS.entrySet()) {
+            result.put(entry.getKey().location().toString(), counter.apply(entry.getValue()).sum());
+        }
+        return result;
+    }
+
+    public static Map<String, Long> getCallsBySource() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (VoidSource source : VoidSource.getValues()) {
+            long total = 0;
+            for (Counters counters : DIMENSIONS.values()) total += counters.callsBySource[source.ordinal()].sum();
+            result.put(source.name(), total);
+        }
+        return result;
+    }
+
+    public static Map<String, Long> getLatencyHistogram() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            long count = LATENCY_BUCKETS[i].sum();
+            if (count == 0) continue;
+            String label = i == BUCKET_COUNT - 1
+                    ? ">=" + (1L << (i - 1 + MIN_BUCKET_SHIFT)) + "ns"
+                    : "<" + (1L << (i + MIN_BUCKET_SHIFT)) + "ns";
+            result.put(label, count);
+        }
+        return result;
+    }
+
+    public static long getLatencySamples() {
+        long total = 0;
+        for (LongAdder bucket : LATENCY_BUCKETS) total += bucket.sum();
+        return total;
+    }
+
+    public static void reset() {
+        for (Counters counters : DIMENSIONS.values()) counters.reset();
+        for (LongAdder bucket : LATENCY_BUCKETS) bucket.reset();
+    }
+
+    public static void registerMBean() {
+        if (registeredName != null) return;
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(new MBean(), name);
+            registeredName = name;
+        } catch (JMException | SecurityException e) {
+            LOGGER.warn("Could not register the nullifier metrics MBean", e);
+        }
+    }
+
+    /**
+     * Called when the server stops; also forgets all counters, as they belong to that server's worlds
+     */
+    public static void unregisterMBean() {
+        DIMENSIONS.clear();
+        for (LongAdder bucket : LATENCY_BUCKETS) bucket.reset();
+        if (registeredName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException | SecurityException e) {
+            LOGGER.warn("Could not unregister the nullifier metrics MBean", e);
+        }
+        registeredName = null;
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; ++i) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    public static class Counters {
+        public final LongAdder itemsVoided = new LongAdder();
+        public final LongAdder insertCalls = new LongAdder();
+        public final LongAdder rejectedInserts = new LongAdder();
+        public final LongAdder scheduledRuns = new LongAdder();
+        public final LongAdder idleRuns = new LongAdder();
+        public final LongAdder deferredRuns = new LongAdder();
+        private final LongAdder[] callsBySource = newAdders(VoidSource.getValues().length);
+
+        public void recordInsert(boolean rejected) {
+            if (!NullifierConfig.enableMetrics) return;
+            insertCalls.increment();
+            if (rejected) rejectedInserts.increment();
+        }
+
+        public void recordVoided(VoidSource source, long count) {
+            if (!NullifierConfig.enableMetrics) return;
+            itemsVoided.add(count);
+            callsBySource[source.ordinal()].increment();
+        }
+
+        /**
+         * Called by NullifierScheduler after running a nullifier's periodic work
+         */
+        public void recordScheduledRun(boolean idle) {
+            if (!NullifierConfig.enableMetrics) return;
+            scheduledRuns.increment();
+            if (idle) idleRuns.increment();
+        }
+
+        /**
+         * Called by NullifierScheduler with the number of due runs that didn't fit into this tick's budget
+         */
+        public void recordDeferred(int count) {
+            if (!NullifierConfig.enableMetrics || count == 0) return;
+            deferredRuns.add(count);
+        }
+
+        private void reset() {
+            itemsVoided.reset();
+            insertCalls.reset();
+            rejectedInserts.reset();
+            scheduledRuns.reset();
+            idleRuns.reset();
+            deferredRuns.reset();
+            for (LongAdder adder : callsBySource) adder.reset();
+        }
+    }
+
+    private static class MBean implements NullifierMetricsMXBean {
+        @Override
+        public long getItemsVoided() {
+            return getTotal(counters -> counters.itemsVoided);
+        }
+
+        @Override
+        public long getInsertCalls() {
+            return getTotal(counters -> counters.insertCalls);
+        }
+
+        @Override
+        public long getRejectedInserts() {
+            return getTotal(counters -> counters.rejectedInserts);
+        }
+
+        @Override
+        public Map<String, Long> getCallsBySource() {
+            return NullifierMetrics.getCallsBySource();
+        }
+
+        @Override
+        public Map<String, Long> getItemsVoidedByDimension() {
+            return getByDimension(counters -> counters.itemsVoided);
+        }
+
+        @Override
+        public Map<String, Long> getInsertCallsByDimension() {
+            return getByDimension(counters -> counters.insertCalls);
+        }
+
+        @Override
+        public Map<String, Long> getRejectedInsertsByDimension() {
+            return getByDimension(counters -> counters.rejectedInserts);
+        }
+
+        @Override
+        public long getScheduledRuns() {
+            return getTotal(counters -> counters.scheduledRuns);
+        }
+
+        @Override
+        public long getIdleRuns() {
+            return getTotal(counters -> counters.idleRuns);
+        }
+
+        @Override
+        public long getDeferredRuns() {
+            return getTotal(counters -> counters.deferredRuns);
+        }
+
+        @Override
+        public Map<String, Long> getDeferredRunsByDimension() {
+            return getByDimension(counters -> counters.deferredRuns);
+        }
+
+        @Override
+        public long getInsertLatencySamples() {
+            return getLatencySamples();
+        }
+
+        @Override
+        public Map<String, Long> getInsertLatencyHistogram() {
+            return Collections.unmodifiableMap(getLatencyHistogram());
+        }
+
+        @Override
+        public void reset() {
+            NullifierMetrics.reset();
+        }
+    }
+}
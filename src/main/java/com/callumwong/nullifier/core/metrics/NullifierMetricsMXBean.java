@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of NullifierMetrics, registered as com.callumwong.nullifier:type=Metrics while a server is running.
+ * Maps are keyed by dimension, source or histogram bucket.
+ */
+public interface NullifierMetricsMXBean {
+    long getItemsVoided();
+
+    long getInsertCalls();
+
+    long getRejectedInserts();
+
+    Map<String, Long> getCallsBySource();
+
+    Map<String, Long> getItemsVoidedByDimension();
+
+    Map<String, Long> getInsertCallsByDimension();
+
+    Map<String, Long> getRejectedInsertsByDimension();
+
+    long getScheduledRuns();
+
+    long getIdleRuns();
+
+    long getDeferredRuns();
+
+    Map<String, Long> getDeferredRunsByDimension();
+
+    long getInsertLatencySamples();
+
+    Map<String, Long> getInsertLatencyHistogram();
+
+    void reset();
+}
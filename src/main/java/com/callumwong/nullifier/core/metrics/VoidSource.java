@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.metrics;
+
+/**
+ * How a voided item reached a nullifier.
+ * Hoppers and pipes both insert through the item handler capability and can't be told apart, so they share AUTOMATION.
+ * New sources must be added at the end, the ledger stores the ordinal.
+ */
+public enum VoidSource {
+    AUTOMATION,
+    PLAYER,
+    VACUUM,
+    PULL,
+    CLAIM,
+    PURGE;
+
+    private static final VoidSource[] VALUES = values();
+
+    public static VoidSource[] getValues() {
+        return VALUES;
+    }
+}
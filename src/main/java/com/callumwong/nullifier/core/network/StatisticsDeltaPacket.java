@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.network;
+
+import com.callumwong.nullifier.client.network.ClientPacketHandler;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+/**
+ * The statistics that changed since the last update, sent to the players that have the nullifier's GUI open.
+ * The delta is written once by VoidStatistics.writeDelta and shared between all viewers.
+ */
+public class StatisticsDeltaPacket {
+    private final int containerId;
+    private final byte[] delta;
+
+    public StatisticsDeltaPacket(int containerId, byte[] delta) {
+        this.containerId = containerId;
+        this.delta = delta;
+    }
+
+    public int getContainerId() {
+        return containerId;
+    }
+
+    public byte[] getDelta() {
+        return delta;
+    }
+
+    public static void encode(StatisticsDeltaPacket packet, PacketBuffer buffer) {
+        buffer.writeByte(packet.containerId);
+        buffer.writeByteArray(packet.delta);
+    }
+
+    public static StatisticsDeltaPacket decode(PacketBuffer buffer) {
+        return new StatisticsDeltaPacket(buffer.readByte(), buffer.readByteArray());
+    }
+
+    public static void handle(StatisticsDeltaPacket packet, Supplier<NetworkEvent.Context> contextSupplier) {
+        NetworkEvent.Context context = contextSupplier.get();
+        context.enqueueWork(() -> DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> ClientPacketHandler.handleStatisticsDelta(packet)));
+        context.setPacketHandled(true);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.network;
+
+import com.callumwong.nullifier.common.containers.NullifierContainer;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+/**
+ * Sent by the client when a player ctrl-clicks a stack in their inventory while a nullifier is open; the server voids
+ *   every matching stack in one go instead of one shift-click round trip per stack
+ */
+public class VoidAllPacket {
+    private final int containerId;
+    private final int slotIndex;
+
+    public VoidAllPacket(int containerId, int slotIndex) {
+        this.containerId = containerId;
+        this.slotIndex = slotIndex;
+    }
+
+    public static void encode(VoidAllPacket packet, PacketBuffer buffer) {
+        buffer.writeByte(packet.containerId);
+        buffer.writeVarInt(packet.slotIndex);
+    }
+
+    public static VoidAllPacket decode(PacketBuffer buffer) {
+        return new VoidAllPacket(buffer.readByte(), buffer.readVarInt());
+    }
+
+    public static void handle(VoidAllPacket packet, Supplier<NetworkEvent.Context> contextSupplier) {
+        NetworkEvent.Context context = contextSupplier.get();
+        context.enqueueWork(() -> {
+            ServerPlayerEntity player = context.getSender();
+            if (player == null || player.containerMenu.containerId != packet.containerId) return;
+            if (!(player.containerMenu instanceof NullifierContainer) || !player.containerMenu.stillValid(player)) return;
+            ((NullifierContainer) player.containerMenu).voidAllMatching(player, packet.slotIndex);
+        });
+        context.setPacketHandled(true);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.network;
+
+import com.callumwong.nullifier.client.network.ClientPacketHandler;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+/**
+ * Tells nearby clients that a nullifier voided items since its last effect; 9 bytes, whatever the amount
+ */
+public class VoidEffectPacket {
+    public static final int MAX_INTENSITY = 15;
+
+    private final BlockPos pos;
+    private final int intensity;
+
+    public VoidEffectPacket(BlockPos pos, int intensity) {
+        this.pos = pos;
+        this.intensity = intensity;
+    }
+
+    /**
+     * @return 1 for a single item, one more for every doubling, up to MAX_INTENSITY
+     */
+    public static int intensityOf(long items) {
+        return Math.min(MAX_INTENSITY, 64 - Long.numberOfLeadingZeros(Math.max(1, items)));
+    }
+
+    public BlockPos getPos() {
+        return pos;
+    }
+
+    public int getIntensity() {
+        return intensity;
+    }
+
+    public static void encode(VoidEffectPacket packet, PacketBuffer buffer) {
+        buffer.writeLong(packet.pos.asLong());
+        buffer.writeByte(packet.intensity);
+    }
+
+    public static VoidEffectPacket decode(PacketBuffer buffer) {
+        return new VoidEffectPacket(BlockPos.of(buffer.readLong()), Math.min(MAX_INTENSITY, buffer.readUnsignedByte()));
+    }
+
+    public static void handle(VoidEffectPacket packet, Supplier<NetworkEvent.Context> contextSupplier) {
+        NetworkEvent.Context context = contextSupplier.get();
+        context.enqueueWork(() -> DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> ClientPacketHandler.handleVoidEffect(packet)));
+        context.setPacketHandled(true);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.scheduling;
+
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.core.config.NullifierConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nullifiers that voided something since their last void effect.
+ * A nullifier stays queued until effectIntervalTicks have passed since its last effect, so however many items it
+ *   voids in between, it sends one effect packet per interval.
+ * Server thread only.
+ */
+public class EffectQueue {
+    private static final List<NullifierTileEntity> QUEUED = new ArrayList<>();
+
+    /**
+     * The caller is responsible for not queueing the same TileEntity twice
+     */
+    public static void enqueue(NullifierTileEntity tileEntity) {
+        QUEUED.add(tileEntity);
+    }
+
+    public static void tick() {
+        if (QUEUED.isEmpty()) return;
+
+        int kept = 0;
+        for (int i = 0; i < QUEUED.size(); ++i) {
+            NullifierTileEntity tileEntity = QUEUED.get(i);
+            if (!tileEntity.trySendVoidEffect(NullifierConfig.effectIntervalTicks)) QUEUED.set(kept++, tileEntity);
+        }
+        QUEUED.subList(kept, QUEUED.size()).clear();
+    }
+
+    public static void clear() {
+        QUEUED.clear();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.core.scheduling;
+
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects nullifiers with pending dirty/neighbour notifications during a server tick and flushes them once at the end
+ *   of it, so a nullifier swallowing thousands of items per tick only notifies the world once.
+ * Server thread only.
+ */
+public class NotificationQueue {
+    private static final List<NullifierTileEntity> QUEUED = new ArrayList<>();
+
+    /**
+     * The caller is responsible for not queueing the same TileEntity twice within a tick
+     */
+    public static void enqueue(NullifierTileEntity tileEntity) {
+        QUEUED.add(tileEntity);
+    }
+
+    public static void flush() {
+        if (QUEUED.isEmpty()) return;
+
+        for (int i = 0; i < QUEUED.size(); ++i) {
+            QUEUED.get(i).flushDeferredNotifications();
+        }
+        QUEUED.clear();
+    }
+
+    public static void clear() {
+        QUEUED.clear();
+    }
+}
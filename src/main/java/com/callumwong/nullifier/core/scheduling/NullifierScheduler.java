@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.scheduling;
+
+import com.callumwong.nullifier.core.config.NullifierConfig;
+import com.callumwong.nullifier.core.interfaces.ScheduledWork;
+import com.callumwong.nullifier.core.metrics.NullifierMetrics;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs the periodic work of every active nullifier (vacuum sweeps, pulls) at the end of the server tick, so that no
+ *   nullifier has to tick on its own.
+ * Every dimension has its own round-robin queue. All of them share one per-tick time budget (schedulerBudgetMicros);
+ *   work that is due but didn't fit is counted as deferred and runs first on the following ticks, and the dimension
+ *   that goes first rotates every tick so none of them is starved.
+ * Work that found nothing to do backs off: its interval doubles after every idle run, up to schedulerMaxBackoffTicks,
+ *   until it does something again or is woken up.
+ * Server thread only.
+ */
+public class NullifierScheduler {
+    private static final Map<ServerWorld, Queue> QUEUES = new IdentityHashMap<>();
+    private static final List<Queue> ORDER = new ArrayList<>();
+    private static final int MAX_BACKOFF_SHIFT = 16;
+    private static int firstQueue;
+
+    /**
+     * @param interval the minimum number of ticks between two runs, read again after every run so config reloads apply
+     */
+    public static Task schedule(ServerWorld world, ScheduledWork work, IntSupplier interval) {
+        Queue queue = QUEUES.get(world);
+        if (queue == null) {
+            queue = new Queue(world);
+            QUEUES.put(world, queue);
+            ORDER.add(queue);
+        }
+        Task task = new Task(queue, work, interval);
+        queue.tasks.add(task);
+        return task;
+    }
+
+    public static void onWorldUnload(World world) {
+        Queue queue = QUEUES.remove(world);
+        if (queue != null) ORDER.remove(queue);
+    }
+
+    public static void clear() {
+        QUEUES.clear();
+        ORDER.clear();
+        firstQueue = 0;
+    }
+
+    public static void tick() {
+        int count = ORDER.size();
+        if (count == 0) return;
+
+        long deadline = System.nanoTime() + NullifierConfig.schedulerBudgetMicros * 1000L;
+        if (++firstQueue >= count) firstQueue = 0;
+        boolean outOfTime = false;
+        for (int i = 0; i < count; ++i) {
+            Queue queue = ORDER.get((firstQueue + i) % count);
+            if (outOfTime) queue.defer(queue.tasks.size());
+            else outOfTime = !queue.run(deadline);
+        }
+    }
+
+    private static class Queue {
+        private final ServerWorld world;
+        private final NullifierMetrics.Counters metrics;
+        private final List<Task> tasks = new ArrayList<>();
+        private int cursor;
+
+        private Queue(ServerWorld world) {
+            this.world = world;
+            this.metrics = NullifierMetrics.get(world.dimension());
+        }
+
+        /**
+         * @return false if the deadline was reached
+         */
+        private boolean run(long deadline) {
+            long gameTime = world.getGameTime();
+            int count = tasks.size();
+            for (int i = 0; i < count; ++i) {
+                if (cursor >= tasks.size()) cursor = 0;
+                Task task = tasks.get(cursor++);
+                if (gameTime < task.nextRun) continue;
+
+                boolean worked = task.run(gameTime);
+                metrics.recordScheduledRun(!worked);
+                if (System.nanoTime() >= deadline) {
+                    defer(count - i - 1);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Counts how many of the next tasks were due but are left for the next tick
+         */
+        private void defer(int skipped) {
+            long gameTime = world.getGameTime();
+            int deferred = 0;
+            for (int i = 0, index = cursor; i < skipped; ++i, ++index) {
+                if (index >= tasks.size()) index = 0;
+                if (gameTime >= tasks.get(index).nextRun) ++deferred;
+            }
+            metrics.recordDeferred(deferred);
+        }
+
+        private void remove(Task task) {
+            int index = tasks.indexOf(task);
+            if (index < 0) return;
+            tasks.remove(index);
+            if (cursor > index) --cursor;
+        }
+    }
+
+    public static class Task {
+        private final Queue queue;
+        private final ScheduledWork work;
+        private final IntSupplier interval;
+        private long lastRun = Long.MIN_VALUE;
+        private long nextRun = Long.MIN_VALUE;
+        private int idleRuns;
+
+        private Task(Queue queue, ScheduledWork work, IntSupplier interval) {
+            this.queue = queue;
+            this.work = work;
+            this.interval = interval;
+        }
+
+        /**
+         * @return whether the work did anything
+         */
+        private boolean run(long gameTime) {
+            lastRun = gameTime;
+            boolean worked = work.run();
+            int delay = interval.getAsInt();
+            if (worked) {
+                idleRuns = 0;
+            } else {
+                if (idleRuns < MAX_BACKOFF_SHIFT) ++idleRuns;
+                delay = Math.max(delay, Math.min(delay << idleRuns, NullifierConfig.schedulerMaxBackoffTicks));
+            }
+            nextRun = gameTime + delay;
+            return worked;
+        }
+
+        /**
+         * Ends the backoff, for when something happened that may have given the work something to do again; the
+         *   interval since the last run is still respected
+         */
+        public void wake() {
+            if (idleRuns == 0) return;
+            idleRuns = 0;
+            nextRun = lastRun == Long.MIN_VALUE ? Long.MIN_VALUE : lastRun + interval.getAsInt();
+        }
+
+        public void cancel() {
+            queue.remove(this);
+        }
+    }
+}
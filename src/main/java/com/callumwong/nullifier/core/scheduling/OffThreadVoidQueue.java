@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.scheduling;
+
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Nullifiers that were handed items or fluids on another thread, to be recorded on the server thread.
+ * Filled from any thread, drained by the server tick.
+ */
+public class OffThreadVoidQueue {
+    private static final Queue<NullifierTileEntity> QUEUED = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The caller is responsible for not queueing the same TileEntity twice before it is drained, see ConcurrentVoidBuffer
+     */
+    public static void enqueue(NullifierTileEntity tileEntity) {
+        QUEUED.add(tileEntity);
+    }
+
+    public static void drain() {
+        NullifierTileEntity tileEntity;
+        while ((tileEntity = QUEUED.poll()) != null) {
+            tileEntity.drainOffThreadVoids();
+        }
+    }
+
+    public static void clear() {
+        QUEUED.clear();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.scheduling;
+
+import com.callumwong.nullifier.core.command.PurgeJob;
+import com.callumwong.nullifier.core.config.NullifierConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The running /nullifier purge commands; together they may take purgeBudgetMicros of every tick, oldest first.
+ * Server thread only.
+ */
+public class PurgeQueue {
+    private static final List<PurgeJob> JOBS = new ArrayList<>();
+
+    public static void enqueue(PurgeJob job) {
+        JOBS.add(job);
+    }
+
+    public static void tick() {
+        if (JOBS.isEmpty()) return;
+
+        long deadline = System.nanoTime() + NullifierConfig.purgeBudgetMicros * 1000L;
+        for (int i = 0; i < JOBS.size() && System.nanoTime() < deadline; ) {
+            if (JOBS.get(i).tick(deadline)) JOBS.remove(i);
+            else ++i;
+        }
+    }
+
+    public static void clear() {
+        JOBS.clear();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.callumwong.nullifier.core.vacuum;
+
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+import net.minecraft.world.server.ServerWorld;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Stops dropped items from ever spawning in chunks claimed by claim-mode nullifiers.
+ * Each world keeps a map from chunk position to the nullifiers claiming that chunk, so checking a spawning item is a
+ *   single map lookup followed by the (compiled) filter of the usually one claimant. The map only changes when a
+ *   nullifier is loaded, unloaded or switches mode.
+ * Server thread only.
+ */
+public class ChunkClaimIndex {
+    private static final Map<ServerWorld, ChunkClaimIndex> INDICES = new IdentityHashMap<>();
+    private static final NullifierTileEntity[] NO_CLAIMANTS = new NullifierTileEntity[0];
+
+    private final Long2ObjectMap<NullifierTileEntity[]> chunks = new Long2ObjectOpenHashMap<>();
+
+    private ChunkClaimIndex() {
+        chunks.defaultReturnValue(NO_CLAIMANTS);
+    }
+
+    public static ChunkClaimIndex get(ServerWorld world) {
+        return INDICES.computeIfAbsent(world, w -> new ChunkClaimIndex());
+    }
+
+    public static void onWorldUnload(World world) {
+        INDICES.remove(world);
+    }
+
+    public static void clear() {
+        INDICES.clear();
+    }
+
+    /**
+     * Called for every item entity about to join a server world
+     * @return whether a claimant voided it, in which case it must not be added
+     */
+    public static boolean tryVoid(ServerWorld world, ItemEntity itemEntity) {
+        if (INDICES.isEmpty()) return false;
+        ChunkClaimIndex index = INDICES.get(world);
+        if (index == null) return false;
+
+        long key = ChunkPos.asLong(MathHelper.floor(itemEntity.getX()) >> 4, MathHelper.floor(itemEntity.getZ()) >> 4);
+        for (NullifierTileEntity claimant : index.chunks.get(key)) {
+            if (claimant.tryVoidSpawningItem(itemEntity)) return true;
+        }
+        return false;
+    }
+
+    public Claim register(NullifierTileEntity tileEntity, int radius) {
+        Claim claim = new Claim(this, tileEntity, radius);
+        for (long key : claim.chunkKeys) {
+            NullifierTileEntity[] claimants = chunks.get(key);
+            claimants = Arrays.copyOf(claimants, claimants.length + 1);
+            claimants[claimants.length - 1] = tileEntity;
+            chunks.put(key, claimants);
+        }
+        return claim;
+    }
+
+    private void unregister(Claim claim) {
+        for (long key : claim.chunkKeys) {
+            NullifierTileEntity[] claimants = chunks.get(key);
+            int index = Arrays.asList(claimants).indexOf(claim.tileEntity);
+            if (index < 0) continue;
+            if (claimants.length == 1) {
+                chunks.remove(key);
+                continue;
+            }
+            NullifierTileEntity[] remaining = new NullifierTileEntity[claimants.length - 1];
+            System.arraycopy(claimants, 0, remaining, 0, index);
+            System.arraycopy(claimants, index + 1, remaining, index, remaining.length - index);
+            chunks.put(key, remaining);
+        }
+    }
+
+    public static class Claim {
+        private final ChunkClaimIndex index;
+        private final NullifierTileEntity tileEntity;
+        private final long[] chunkKeys;
+
+        private Claim(ChunkClaimIndex index, NullifierTileEntity tileEntity, int radius) {
+            this.index = index;
+            this.tileEntity = tileEntity;
+
+            BlockPos pos = tileEntity.getBlockPos();
+            int centreX = pos.getX() >> 4;
+            int centreZ = pos.getZ() >> 4;
+            int size = radius * 2 + 1;
+            chunkKeys = new long[size * size];
+            int i = 0;
+            for (int x = centreX - radius; x <= centreX + radius; ++x) {
+                for (int z = centreZ - radius; z <= centreZ + radius; ++z) {
+                    chunkKeys[i++] = ChunkPos.asLong(x, z);
+                }
+            }
+        }
+
+        public void unregister() {
+            index.unregister(this);
+        }
+    }
+}
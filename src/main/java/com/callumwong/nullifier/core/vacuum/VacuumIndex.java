@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2021 Callum Wong
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.callumwong.nullifier.core.vacuum;
+
+import com.callumwong.nullifier.common.tiles.NullifierTileEntity;
+import com.callumwong.nullifier.core.config.NullifierConfig;
+import com.callumwong.nullifier.core.scheduling.NullifierScheduler;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.item.ExperienceOrbEntity;
+import net.minecraft.entity.item.ItemEntity;
+import net.minecraft.entity.projectile.AbstractArrowEntity;
+import net.minecraft.util.ClassInheritanceMultiMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.server.ServerWorld;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the dropped items that vacuum-mode nullifiers should delete, and the experience orbs and stuck arrows that
+ *   absorbing nullifiers should remove.
+ * Instead of every vacuum doing its own AABB query each tick, each world keeps a map from chunk section to the vacuums
+ *   covering it. A sweep walks the vanilla per-section entity lists of the sections a vacuum covers, and a section swept
+ *   in the current tick is skipped by every other vacuum overlapping it.
+ * Sweeps are run by NullifierScheduler, which also backs off vacuums that keep finding nothing.
+ * Server thread only.
+ */
+public class VacuumIndex {
+    private static final Map<ServerWorld, VacuumIndex> INDICES = new IdentityHashMap<>();
+    private static final int MIN_SECTION_Y = 0;
+    private static final int MAX_SECTION_Y = 15;
+
+    private final ServerWorld world;
+    private final Long2ObjectMap<Section> sections = new Long2ObjectOpenHashMap<>();
+
+    private VacuumIndex(ServerWorld world) {
+        this.world = world;
+    }
+
+    public static VacuumIndex get(ServerWorld world) {
+        return INDICES.computeIfAbsent(world, VacuumIndex::new);
+    }
+
+    public static void onWorldUnload(World world) {
+        INDICES.remove(world);
+    }
+
+    public static void clear() {
+        INDICES.clear();
+    }
+
+    /**
+     * @param items whether to delete dropped items
+     * @param absorb whether to remove experience orbs and stuck arrows
+     */
+    public Vacuum register(NullifierTileEntity tileEntity, int radius, boolean items, boolean absorb) {
+        Vacuum vacuum = new Vacuum(this, tileEntity, radius, items, absorb);
+
+        for (long key : vacuum.sectionKeys) {
+            Section section = sections.get(key);
+            if (section == null) {
+                section = new Section();
+                sections.put(key, section);
+            }
+            section.add(vacuum);
+        }
+        vacuum.task = NullifierScheduler.schedule(world, () -> sweep(vacuum), () -> NullifierConfig.vacuumIntervalTicks);
+        return vacuum;
+    }
+
+    private void unregister(Vacuum vacuum) {
+        if (vacuum.task == null) return;
+        vacuum.task.cancel();
+        vacuum.task = null;
+
+        for (long key : vacuum.sectionKeys) {
+            Section section = sections.get(key);
+            if (section == null) continue;
+            section.remove(vacuum);
+            if (section.vacuums.isEmpty()) sections.remove(key);
+        }
+    }
+
+    /**
+     * @return whether anything was voided
+     */
+    private boolean sweep(Vacuum vacuum) {
+        long gameTime = world.getGameTime();
+        boolean voided = false;
+        for (long key : vacuum.sectionKeys) {
+            Section section = sections.get(key);
+            if (section == null || section.lastSweep == gameTime) continue;
+            section.lastSweep = gameTime;
+
+            Chunk chunk = world.getChunkSource().getChunkNow(SectionPos.x(key), SectionPos.z(key));
+            if (chunk == null) continue;
+            ClassInheritanceMultiMap<Entity>[] entitySections = chunk.getEntitySections();
+            int sectionY = SectionPos.y(key);
+            if (sectionY < 0 || sectionY >= entitySections.length) continue;
+
+            ClassInheritanceMultiMap<Entity> entities = entitySections[sectionY];
+            if (section.itemVacuums > 0 && sweepItems(section, entities.find(ItemEntity.class))) voided = true;
+            if (section.absorbers > 0 && sweepAbsorbable(section, entities)) voided = true;
+        }
+        return voided;
+    }
+
+    private static boolean sweepItems(Section section, Collection<ItemEntity> items) {
+        if (items.isEmpty()) return false;
+        boolean voided = false;
+        for (ItemEntity item : items) {
+            if (!item.isAlive()) continue;
+            for (int i = 0; i < section.vacuums.size(); ++i) {
+                Vacuum candidate = section.vacuums.get(i);
+                if (candidate.items && candidate.contains(item) && candidate.tileEntity.tryVoidItemEntity(item)) {
+                    voided = true;
+                    break;
+                }
+            }
+        }
+        return voided;
+    }
+
+    private static boolean sweepAbsorbable(Section section, ClassInheritanceMultiMap<Entity> entities) {
+        boolean absorbed = false;
+        for (ExperienceOrbEntity orb : entities.find(ExperienceOrbEntity.class)) {
+            if (!orb.isAlive()) continue;
+            Vacuum absorber = section.findAbsorber(orb);
+            if (absorber == null) continue;
+            absorber.tileEntity.absorbExperience(orb);
+            absorbed = true;
+        }
+        for (AbstractArrowEntity projectile : entities.find(AbstractArrowEntity.class)) {
+            if (!projectile.isAlive()) continue;
+            Vacuum absorber = section.findAbsorber(projectile);
+            if (absorber != null && absorber.tileEntity.tryAbsorbProjectile(projectile)) absorbed = true;
+        }
+        return absorbed;
+    }
+
+    private static class Section {
+        private final List<Vacuum> vacuums = new ArrayList<>(2);
+        private int itemVacuums;
+        private int absorbers;
+        private long lastSweep = Long.MIN_VALUE;
+
+        private void add(Vacuum vacuum) {
+            vacuums.add(vacuum);
+            if (vacuum.items) ++itemVacuums;
+            if (vacuum.absorb) ++absorbers;
+        }
+
+        private void remove(Vacuum vacuum) {
+            if (!vacuums.remove(vacuum)) return;
+            if (vacuum.items) --itemVacuums;
+            if (vacuum.absorb) --absorbers;
+        }
+
+        private Vacuum findAbsorber(Entity entity) {
+            for (int i = 0; i < vacuums.size(); ++i) {
+                Vacuum candidate = vacuums.get(i);
+                if (candidate.absorb && candidate.contains(entity)) return candidate;
+            }
+            return null;
+        }
+    }
+
+    public static class Vacuum {
+        private final VacuumIndex index;
+        private final NullifierTileEntity tileEntity;
+        private final double minX, minY, minZ, maxX, maxY, maxZ;
+        private final long[] sectionKeys;
+        private final boolean items;
+        private final boolean absorb;
+        private NullifierScheduler.Task task;
+
+        private Vacuum(VacuumIndex index, NullifierTileEntity tileEntity, int radius, boolean items, boolean absorb) {
+            this.index = index;
+            this.tileEntity = tileEntity;
+            this.items = items;
+            this.absorb = absorb;
+
+            BlockPos pos = tileEntity.getBlockPos();
+            minX = pos.getX() - radius;
+            minY = pos.getY() - radius;
+            minZ = pos.getZ() - radius;
+            maxX = pos.getX() + radius + 1;
+            maxY = pos.getY() + radius + 1;
+            maxZ = pos.getZ() + radius + 1;
+
+            int minSectionX = SectionPos.blockToSectionCoord(pos.getX() - radius);
+            int minSectionY = Math.max(MIN_SECTION_Y, SectionPos.blockToSectionCoord(pos.getY() - radius));
+            int minSectionZ = SectionPos.blockToSectionCoord(pos.getZ() - radius);
+            int maxSectionX = SectionPos.blockToSectionCoord(pos.getX() + radius);
+            int maxSectionY = Math.min(MAX_SECTION_Y, SectionPos.blockToSectionCoord(pos.getY() + radius));
+            int maxSectionZ = SectionPos.blockToSectionCoord(pos.getZ() + radius);
+
+            int sectionCount = (maxSectionX - minSectionX + 1) * Math.max(0, maxSectionY - minSectionY + 1) * (maxSectionZ - minSectionZ + 1);
+            sectionKeys = new long[sectionCount];
+            int i = 0;
+            for (int x = minSectionX; x <= maxSectionX; ++x) {
+                for (int y = minSectionY; y <= maxSectionY; ++y) {
+                    for (int z = minSectionZ; z <= maxSectionZ; ++z) {
+                        sectionKeys[i++] = SectionPos.asLong(x, y, z);
+                    }
+                }
+            }
+        }
+
+        public boolean hasModes(boolean items, boolean absorb) {
+            return this.items == items && this.absorb == absorb;
+        }
+
+        public void unregister() {
+            index.unregister(this);
+        }
+
+        private boolean contains(Entity entity) {
+            double x = entity.getX();
+            double y = entity.getY();
+            double z = entity.getZ();
+            return x >= minX && x < maxX && y >= minY && y < maxY && z >= minZ && z < maxZ;
+        }
+    }
+}